@@ -16,7 +16,6 @@
 package com.eclipsesource.glsp.example.workflow.marker;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,7 +25,6 @@ import com.eclipsesource.glsp.api.markers.ModelValidator;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.example.workflow.wfgraph.ActivityNode;
 import com.eclipsesource.glsp.example.workflow.wfgraph.TaskNode;
-import com.eclipsesource.glsp.graph.GEdge;
 import com.eclipsesource.glsp.graph.GModelElement;
 
 public class WorkflowModelValidator implements ModelValidator {
@@ -89,11 +87,11 @@ public class WorkflowModelValidator implements ModelValidator {
 
 	private static Optional<Marker> validateDecisionNode_hasOneIncomingEdge(GraphicalModelState modelState,
 			GModelElement decisionNode) {
-		Collection<GEdge> incomingEdges = modelState.getIndex().getIncomingEdges(decisionNode);
-		if (incomingEdges.size() > 1) {
+		int incomingEdges = modelState.getIndex().getIncomingEdgeCount(decisionNode);
+		if (incomingEdges > 1) {
 			return Optional.of(new Marker("Too many incoming edges", "Decision node may only have one incoming edge.",
 					decisionNode.getId(), MarkerKind.ERROR));
-		} else if (incomingEdges.size() == 0) {
+		} else if (incomingEdges == 0) {
 			return Optional.of(new Marker("Missing incoming edge", "Decision node must have one incoming edge.",
 					decisionNode.getId(), MarkerKind.ERROR));
 		}
@@ -108,11 +106,11 @@ public class WorkflowModelValidator implements ModelValidator {
 
 	private static Optional<Marker> validateMergeNode_hasOneOutgoingEdge(GraphicalModelState modelState,
 			GModelElement mergeNode) {
-		Collection<GEdge> outgoingEdges = modelState.getIndex().getOutgoingEdges(mergeNode);
-		if (outgoingEdges.size() > 1) {
+		int outgoingEdges = modelState.getIndex().getOutgoingEdgeCount(mergeNode);
+		if (outgoingEdges > 1) {
 			return Optional.of(new Marker("Too many outgoing edges", "Merge node may only have one outgoing edge.",
 					mergeNode.getId(), MarkerKind.ERROR));
-		} else if (outgoingEdges.size() == 0) {
+		} else if (outgoingEdges == 0) {
 			return Optional.of(new Marker("Missing outgoing edge", "Merge node must have one incoming edge.",
 					mergeNode.getId(), MarkerKind.ERROR));
 		}
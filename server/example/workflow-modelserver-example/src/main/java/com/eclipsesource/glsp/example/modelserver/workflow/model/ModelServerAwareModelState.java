@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.example.modelserver.workflow.model;
 
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.server.model.ModelStateImpl;
 
@@ -22,6 +23,10 @@ public class ModelServerAwareModelState extends ModelStateImpl {
 
 	private WorkflowModelServerAccess modelAccess;
 
+	public ModelServerAwareModelState(CommandStackFactory commandStackFactory) {
+		super(commandStackFactory);
+	}
+
 	public static WorkflowModelServerAccess getModelAccess(GraphicalModelState state) {
 		if (!(state instanceof ModelServerAwareModelState)) {
 			throw new IllegalArgumentException("Argument must be a ModelServerAwareModelState");
@@ -23,6 +23,6 @@ import com.google.inject.Singleton;
 public class ModelServerAwareModelStateProvider extends DefaultModelStateProvider {
 	@Override
 	protected GraphicalModelState createModelState() {
-		return new ModelServerAwareModelState();
+		return new ModelServerAwareModelState(getCommandStackFactory());
 	}
 }
@@ -20,6 +20,7 @@ import com.eclipsesource.glsp.api.action.Action;
 public abstract class AbstractOperationAction extends Action {
 
 	private String operationKind;
+	private String gestureId;
 
 	public AbstractOperationAction(String operationKind) {
 		super(operationKind);
@@ -33,4 +34,20 @@ public abstract class AbstractOperationAction extends Action {
 		this.operationKind = operationKind;
 	}
 
+	/**
+	 * Returns the id of the client gesture, e.g. a drag, this operation belongs
+	 * to. Successive operations of the same gesture are merged into one undoable
+	 * command.
+	 * 
+	 * @return the gesture id or <code>null</code> if the client did not declare a
+	 *         gesture
+	 */
+	public String getGestureId() {
+		return gestureId;
+	}
+
+	public void setGestureId(String gestureId) {
+		this.gestureId = gestureId;
+	}
+
 }
@@ -15,12 +15,16 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.api.action.kind;
 
+import java.util.List;
+
 import com.eclipsesource.glsp.api.action.Action;
+import com.eclipsesource.glsp.api.types.Match;
 import com.eclipsesource.glsp.graph.GModelRoot;
 
 public class UpdateModelAction extends Action {
 
 	private GModelRoot newRoot;
+	private List<Match> matches;
 	private boolean animate = true;
 
 	public UpdateModelAction() {
@@ -33,16 +37,31 @@ public class UpdateModelAction extends Action {
 		this.animate = animate;
 	}
 
+	/**
+	 * Creates an update that only transfers the differences to the model the
+	 * client currently has instead of the complete new model.
+	 */
+	public UpdateModelAction(List<Match> matches, boolean animate) {
+		this();
+		this.matches = matches;
+		this.animate = animate;
+	}
+
 	public GModelRoot getNewRoot() {
 		return newRoot;
 	}
 
+	public List<Match> getMatches() {
+		return matches;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = super.hashCode();
 		result = prime * result + (animate ? 1231 : 1237);
 		result = prime * result + ((newRoot == null) ? 0 : newRoot.hashCode());
+		result = prime * result + ((matches == null) ? 0 : matches.hashCode());
 		return result;
 	}
 
@@ -62,6 +81,11 @@ public class UpdateModelAction extends Action {
 				return false;
 		} else if (!newRoot.equals(other.newRoot))
 			return false;
+		if (matches == null) {
+			if (other.matches != null)
+				return false;
+		} else if (!matches.equals(other.matches))
+			return false;
 		return true;
 	}
 
@@ -26,8 +26,10 @@ import com.eclipsesource.glsp.api.factory.PopupModelFactory;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPClientProvider;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPServer;
 import com.eclipsesource.glsp.api.labeledit.LabelEditValidator;
+import com.eclipsesource.glsp.api.layout.BoundsEstimator;
 import com.eclipsesource.glsp.api.layout.ILayoutEngine;
 import com.eclipsesource.glsp.api.markers.ModelValidator;
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
 import com.eclipsesource.glsp.api.model.ModelElementOpenListener;
 import com.eclipsesource.glsp.api.model.ModelExpansionListener;
 import com.eclipsesource.glsp.api.model.ModelSelectionListener;
@@ -53,6 +55,7 @@ public abstract class GLSPModule extends AbstractModule {
 		bind(ModelExpansionListener.class).to(bindModelExpansionListener());
 		bind(ModelElementOpenListener.class).to(bindModelElementOpenListener());
 		bind(ILayoutEngine.class).to(bindLayoutEngine());
+		bind(BoundsEstimator.class).to(bindBoundsEstimator());
 		bind(ActionProvider.class).to(bindActionProvider());
 		bind(ActionHandlerProvider.class).to(bindActionHandlerProvider());
 		bind(OperationHandlerProvider.class).to(bindOperatioHandlerProvider());
@@ -64,6 +67,7 @@ public abstract class GLSPModule extends AbstractModule {
 		bind(DiagramConfigurationProvider.class).to(bindDiagramConfigurationProvider());
 		bind(LabelEditValidator.class).to(bindLabelEditValidator());
 		bind(ModelStateProvider.class).to(bindModelStateProvider());
+		bind(CommandStackFactory.class).to(bindCommandStackFactory());
 		bind(GraphGsonConfiguratorFactory.class).to(bindGraphGsonConfiguratorFactory());
 		bind(GLSPClientProvider.class).to(bindGSLPClientProvider());
 		bind(ServerConfiguration.class).to(bindServerConfiguration()).in(Singleton.class);
@@ -124,6 +128,10 @@ public abstract class GLSPModule extends AbstractModule {
 		return ILayoutEngine.NullImpl.class;
 	}
 
+	protected Class<? extends BoundsEstimator> bindBoundsEstimator() {
+		return BoundsEstimator.NullImpl.class;
+	}
+
 	protected Class<? extends ServerCommandHandlerProvider> bindServerCommandHandlerProvider() {
 		return ServerCommandHandlerProvider.NullImpl.class;
 	}
@@ -144,6 +152,10 @@ public abstract class GLSPModule extends AbstractModule {
 		return null;
 	}
 
+	protected Class<? extends CommandStackFactory> bindCommandStackFactory() {
+		return CommandStackFactory.NullImpl.class;
+	}
+
 	protected Class<? extends ServerConfiguration> bindServerConfiguration() {
 		return ServerConfiguration.NullImpl.class;
 	}
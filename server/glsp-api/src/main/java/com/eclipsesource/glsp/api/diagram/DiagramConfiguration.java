@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.api.diagram;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +26,7 @@ import org.eclipse.emf.ecore.EPackage;
 import com.eclipsesource.glsp.api.operations.Operation;
 import com.eclipsesource.glsp.api.types.EdgeTypeHint;
 import com.eclipsesource.glsp.api.types.ShapeTypeHint;
+import com.eclipsesource.glsp.api.types.SizeRule;
 
 public interface DiagramConfiguration {
 
@@ -38,6 +40,14 @@ public interface DiagramConfiguration {
 
 	List<Operation> getOperations();
 
+	/**
+	 * Returns the rules to estimate the sizes of elements on the server, keyed by
+	 * element type.
+	 */
+	default Map<String, SizeRule> getSizeRules() {
+		return Collections.emptyMap();
+	}
+
 	default Optional<EPackage> getEPackage() {
 		return Optional.empty();
 	}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.api.layout;
+
+import com.eclipsesource.glsp.api.model.GraphicalModelState;
+
+/**
+ * A bounds estimator computes the sizes of the elements of a model on the
+ * server, so that the model can be sent to the client without letting the
+ * client compute the bounds first.
+ */
+public interface BoundsEstimator {
+
+	/**
+	 * Estimate the bounds of the elements of the given model and modify the model
+	 * accordingly.
+	 * 
+	 * @return <code>true</code> if the bounds of all elements are known
+	 *         afterwards, <code>false</code> if the client has to compute them
+	 */
+	public boolean estimateBounds(GraphicalModelState modelState);
+
+	/**
+	 * An implementation that leaves the computation of the bounds to the client.
+	 */
+	public static class NullImpl implements BoundsEstimator {
+		@Override
+		public boolean estimateBounds(GraphicalModelState modelState) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.api.model;
+
+import org.eclipse.emf.common.command.BasicCommandStack;
+import org.eclipse.emf.common.command.CommandStack;
+
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Creates the command stack of a model state whenever a new model is set, e.g.
+ * to configure the size of the undo history.
+ */
+public interface CommandStackFactory {
+
+	/**
+	 * Creates the command stack for the commands executed on the given model.
+	 * 
+	 * @param modelRoot the root of the model
+	 * @return a new command stack
+	 */
+	CommandStack createCommandStack(GModelRoot modelRoot);
+
+	/**
+	 * An implementation that creates an unbounded {@link BasicCommandStack}.
+	 */
+	public static class NullImpl implements CommandStackFactory {
+		@Override
+		public CommandStack createCommandStack(GModelRoot modelRoot) {
+			return new BasicCommandStack();
+		}
+	}
+
+}
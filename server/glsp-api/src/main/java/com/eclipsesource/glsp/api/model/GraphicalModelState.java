@@ -16,6 +16,7 @@
 package com.eclipsesource.glsp.api.model;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import com.eclipsesource.glsp.graph.GModelIndex;
@@ -30,9 +31,50 @@ public interface GraphicalModelState extends ModelState<GModelRoot> {
 
 	Set<String> getSelectedElements();
 
+	/**
+	 * Replaces the expanded elements of this state with a copy of the given ids.
+	 * Later changes of the given set do not affect this state, the set returned
+	 * by {@link #getExpandedElements()} can be modified in place instead.
+	 * 
+	 * @param expandedElements the ids of the expanded elements
+	 */
 	void setExpandedElements(Set<String> expandedElements);
 
+	/**
+	 * Replaces the selected elements of this state with a copy of the given ids.
+	 * Later changes of the given set do not affect this state, the set returned
+	 * by {@link #getSelectedElements()} can be modified in place instead.
+	 * 
+	 * @param selectedElements the ids of the selected elements
+	 */
 	void setSelectedElements(Set<String> selectedElements);
 
 	GModelIndex getIndex();
+
+	/**
+	 * Returns the revision of the current model. The revision is incremented
+	 * whenever a command is executed, undone or redone, and is never reused for
+	 * the same client, so responses of the client that refer to an older
+	 * revision can be detected as stale.
+	 * 
+	 * @return the current revision
+	 */
+	int getRevision();
+
+	/**
+	 * Returns the lock that guards the model of this client. Commands and
+	 * submissions of different clients don't block each other.
+	 * 
+	 * @return the lock object
+	 */
+	Object getModelLock();
+
+	/**
+	 * Returns the builder that collects the changes of the current model since it
+	 * was last submitted to the client.
+	 * 
+	 * @return the patch builder or {@link Optional#empty()} if this state does
+	 *         not support incremental updates
+	 */
+	Optional<ModelPatchBuilder> getPatchBuilder();
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.api.model;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.eclipsesource.glsp.api.types.Match;
+
+/**
+ * Collects the changes of the model of a {@link GraphicalModelState} since it
+ * was last submitted to the client, so that an incremental update can be sent
+ * instead of the complete model.
+ */
+public interface ModelPatchBuilder {
+
+	/**
+	 * Returns the matches that transform the model last submitted to the client
+	 * into the current model.
+	 * 
+	 * @return the matches or {@link Optional#empty()} if the complete model has to
+	 *         be sent
+	 */
+	Optional<List<Match>> buildPatch();
+
+	/**
+	 * Marks the current model as submitted to the client. Subsequent patches are
+	 * built relative to this model.
+	 */
+	void reset();
+
+	/**
+	 * Discards the collected changes until the complete model has been submitted
+	 * again.
+	 */
+	void invalidate();
+
+}
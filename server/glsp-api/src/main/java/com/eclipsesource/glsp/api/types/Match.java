@@ -17,18 +17,36 @@ package com.eclipsesource.glsp.api.types;
 
 import com.eclipsesource.glsp.graph.GModelElement;
 
+/**
+ * Difference of one element between two versions of a model as understood by
+ * the client's <code>UpdateModelAction</code>: the element <code>left</code>
+ * is removed from the old model and <code>right</code> is added to the element
+ * with id <code>rightParentId</code>. Both sides may be present to replace an
+ * element.
+ */
 public class Match {
 
 	private GModelElement left;
 	private GModelElement right;
+	private String leftParentId;
+	private String rightParentId;
 
 	public Match() {
 	}
 
 	public Match(GModelElement left, GModelElement right) {
-		super();
+		this(left, parentId(left), right, parentId(right));
+	}
+
+	public Match(GModelElement left, String leftParentId, GModelElement right, String rightParentId) {
 		this.left = left;
+		this.leftParentId = leftParentId;
 		this.right = right;
+		this.rightParentId = rightParentId;
+	}
+
+	private static String parentId(GModelElement element) {
+		return element != null && element.getParent() != null ? element.getParent().getId() : null;
 	}
 
 	public GModelElement getLeft() {
@@ -40,11 +58,11 @@ public class Match {
 	}
 
 	public String getLeftParentId() {
-		return this.left.getParent().getId();
+		return leftParentId;
 	}
 
 	public String getRightParentId() {
-		return this.right.getParent().getId();
+		return rightParentId;
 	}
 
 	public void setLeft(GModelElement left) {
@@ -55,4 +73,12 @@ public class Match {
 		this.right = right;
 	}
 
+	public void setLeftParentId(String leftParentId) {
+		this.leftParentId = leftParentId;
+	}
+
+	public void setRightParentId(String rightParentId) {
+		this.rightParentId = rightParentId;
+	}
+
 }
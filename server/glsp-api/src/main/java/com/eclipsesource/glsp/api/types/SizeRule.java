@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.api.types;
+
+/**
+ * Rule to estimate the size of the elements of one type on the server, e.g. a
+ * minimum size for nodes or the font of labels.
+ */
+public class SizeRule {
+
+	private double minWidth;
+	private double minHeight;
+	private String fontFamily;
+	private int fontSize;
+	private boolean bold;
+
+	public SizeRule() {
+	}
+
+	public SizeRule(double minWidth, double minHeight) {
+		this.minWidth = minWidth;
+		this.minHeight = minHeight;
+	}
+
+	public SizeRule(String fontFamily, int fontSize, boolean bold) {
+		this.fontFamily = fontFamily;
+		this.fontSize = fontSize;
+		this.bold = bold;
+	}
+
+	public double getMinWidth() {
+		return minWidth;
+	}
+
+	public void setMinWidth(double minWidth) {
+		this.minWidth = minWidth;
+	}
+
+	public double getMinHeight() {
+		return minHeight;
+	}
+
+	public void setMinHeight(double minHeight) {
+		this.minHeight = minHeight;
+	}
+
+	public String getFontFamily() {
+		return fontFamily;
+	}
+
+	public void setFontFamily(String fontFamily) {
+		this.fontFamily = fontFamily;
+	}
+
+	public int getFontSize() {
+		return fontSize;
+	}
+
+	public void setFontSize(int fontSize) {
+		this.fontSize = fontSize;
+	}
+
+	public boolean isBold() {
+		return bold;
+	}
+
+	public void setBold(boolean bold) {
+		this.bold = bold;
+	}
+
+}
@@ -22,6 +22,7 @@ public final class ClientOptions {
 	public static final String DIAGRAM_TYPE = "diagramType";
 	public static final String SOURCE_URI = "sourceUri";
 	public static final String NEEDS_CLIENT_LAYOUT = "needsClientLayout";
+	public static final String SUPPORTS_MODEL_PATCHES = "supportsModelPatches";
 
 	private ClientOptions() {
 	}
@@ -16,13 +16,12 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.api.utils;
 
-import static com.eclipsesource.glsp.api.jsonrpc.GLSPServerException.getOrThrow;
-
 import java.util.Optional;
 
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 import com.eclipsesource.glsp.api.action.kind.ComputedBoundsAction;
+import com.eclipsesource.glsp.api.jsonrpc.GLSPServerException;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.types.ElementAndAlignment;
 import com.eclipsesource.glsp.api.types.ElementAndBounds;
@@ -31,6 +30,7 @@ import com.eclipsesource.glsp.graph.GBounds;
 import com.eclipsesource.glsp.graph.GBoundsAware;
 import com.eclipsesource.glsp.graph.GDimension;
 import com.eclipsesource.glsp.graph.GEdge;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
 import com.eclipsesource.glsp.graph.GModelElement;
 import com.eclipsesource.glsp.graph.GModelIndex;
 import com.eclipsesource.glsp.graph.GModelRoot;
@@ -44,33 +44,82 @@ public final class LayoutUtil {
 	}
 
 	/**
-	 * Apply the computed bounds from the given action to the model.
+	 * Apply the computed bounds from the given action to the model. All changes
+	 * are applied in one transaction of the model's {@link GModelChangeNotifier}.
+	 * Bounds that equal the current ones are skipped and changed bounds are
+	 * written into the existing position, size and alignment objects of an
+	 * element, so applying the same action again neither allocates nor notifies
+	 * anything and only the elements whose bounds differ show up in the change
+	 * set of the transaction.
 	 */
 	public static void applyBounds(GModelRoot root, ComputedBoundsAction action, GraphicalModelState modelState) {
+		GModelChangeNotifier.get(root).runInTransaction(() -> doApplyBounds(action, modelState));
+	}
+
+	private static void doApplyBounds(ComputedBoundsAction action, GraphicalModelState modelState) {
 		GModelIndex index = modelState.getIndex();
 		for (ElementAndBounds b : action.getBounds()) {
-			GModelElement element = getOrThrow(index.get(b.getElementId()),
-					"Model element not found! ID: " + b.getElementId());
+			GModelElement element = getElement(index, b.getElementId());
 			if (element instanceof GBoundsAware) {
 				GBoundsAware bae = (GBoundsAware) element;
 				if (b.getNewPosition() != null) {
-					bae.setPosition(GraphUtil.copy(b.getNewPosition()));
+					if (bae.getPosition() == null) {
+						bae.setPosition(GraphUtil.copy(b.getNewPosition()));
+					} else {
+						update(bae.getPosition(), b.getNewPosition());
+					}
 				}
 				if (b.getNewSize() != null) {
-					bae.setSize(GraphUtil.copy(b.getNewSize()));
+					if (bae.getSize() == null) {
+						bae.setSize(GraphUtil.copy(b.getNewSize()));
+					} else {
+						update(bae.getSize(), b.getNewSize());
+					}
 				}
 			}
 		}
 		for (ElementAndAlignment a : action.getAlignments()) {
-			GModelElement element = getOrThrow(index.get(a.getElementId()),
-					"Model element not found! ID: " + a.getElementId());
+			GModelElement element = getElement(index, a.getElementId());
 			if (element instanceof GAlignable) {
 				GAlignable alignable = (GAlignable) element;
-				alignable.setAlignment(a.getNewAlignment());
+				if (a.getNewAlignment() == null || alignable.getAlignment() == null) {
+					if (a.getNewAlignment() != alignable.getAlignment()) {
+						alignable.setAlignment(a.getNewAlignment() != null ? GraphUtil.copy(a.getNewAlignment()) : null);
+					}
+				} else {
+					update(alignable.getAlignment(), a.getNewAlignment());
+				}
 			}
 		}
 	}
 
+	private static GModelElement getElement(GModelIndex index, String elementId) {
+		Optional<GModelElement> element = index.get(elementId);
+		if (!element.isPresent()) {
+			// the message is only built for missing elements
+			throw new GLSPServerException("Model element not found! ID: " + elementId);
+		}
+		return element.get();
+	}
+
+	private static void update(GPoint current, GPoint point) {
+		if (current.getX() != point.getX()) {
+			current.setX(point.getX());
+		}
+		if (current.getY() != point.getY()) {
+			current.setY(point.getY());
+		}
+	}
+
+	private static void update(GDimension current, GDimension dimension) {
+		if (current.getWidth() != dimension.getWidth()) {
+			current.setWidth(dimension.getWidth());
+		}
+		if (current.getHeight() != dimension.getHeight()) {
+			current.setHeight(dimension.getHeight());
+		}
+	}
+
 	public static GPoint asPoint(GBounds bounds) {
 		GPoint point = GraphFactory.eINSTANCE.createGPoint();
 		point.setX(bounds.getX());
@@ -22,6 +22,7 @@ import com.eclipsesource.glsp.graph.GPoint;
 import com.eclipsesource.glsp.graph.GraphPackage;
 
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.eclipse.emf.common.notify.Notification;
@@ -216,6 +217,26 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	 */
 	protected String routerKind = ROUTER_KIND_EDEFAULT;
 
+	/**
+	 * The source element resolved via the {@link GModelIndex}. It is cached until
+	 * the source id changes or the index invalidates it.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #basicGetSource()
+	 * @generated NOT
+	 */
+	protected transient GModelElement resolvedSource;
+
+	/**
+	 * The target element resolved via the {@link GModelIndex}. It is cached until
+	 * the target id changes or the index invalidates it.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #basicGetTarget()
+	 * @generated NOT
+	 */
+	protected transient GModelElement resolvedTarget;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -403,12 +424,13 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	@Override
 	public void setSourceId(String newSourceId) {
 		String oldSourceId = sourceId;
 		sourceId = newSourceId;
+		resolvedSource = null;
 		if (eNotificationRequired())
 			eNotify(new ENotificationImpl(this, Notification.SET, GraphPackage.GEDGE__SOURCE_ID, oldSourceId,
 					sourceId));
@@ -427,12 +449,13 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	@Override
 	public void setTargetId(String newTargetId) {
 		String oldTargetId = targetId;
 		targetId = newTargetId;
+		resolvedTarget = null;
 		if (eNotificationRequired())
 			eNotify(new ENotificationImpl(this, Notification.SET, GraphPackage.GEDGE__TARGET_ID, oldTargetId,
 					targetId));
@@ -455,7 +478,10 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	 * @generated NOT
 	 */
 	public GModelElement basicGetSource() {
-		return findElement(this.getSourceId()).orElse(null);
+		if (resolvedSource == null || !Objects.equals(resolvedSource.getId(), sourceId)) {
+			resolvedSource = findElement(this.getSourceId()).orElse(null);
+		}
+		return resolvedSource;
 	}
 
 	/**
@@ -465,11 +491,7 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	 */
 	@Override
 	public void setSource(GModelElement newSource) {
-		if (newSource == null) {
-			this.sourceId = null;
-			return;
-		}
-		this.sourceId = newSource.getId();
+		setSourceId(newSource != null ? newSource.getId() : null);
 	}
 
 	/**
@@ -489,7 +511,10 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	 * @generated NOT
 	 */
 	public GModelElement basicGetTarget() {
-		return findElement(this.getTargetId()).orElse(null);
+		if (resolvedTarget == null || !Objects.equals(resolvedTarget.getId(), targetId)) {
+			resolvedTarget = findElement(this.getTargetId()).orElse(null);
+		}
+		return resolvedTarget;
 	}
 
 	/**
@@ -499,11 +524,7 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 	 */
 	@Override
 	public void setTarget(GModelElement newTarget) {
-		if (newTarget == null) {
-			this.targetId = null;
-			return;
-		}
-		this.targetId = newTarget.getId();
+		setTargetId(newTarget != null ? newTarget.getId() : null);
 	}
 
 	/**
@@ -534,6 +555,19 @@ public class GEdgeImpl extends MinimalEObjectImpl.Container implements GEdge {
 		return GModelIndex.get(this).get(elementId);
 	}
 
+	/**
+	 * Clears the cached source and target elements, so that they are resolved
+	 * again on the next access. This is called by the {@link GModelIndex} when a
+	 * referenced element is added, removed or changes its id.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated NOT
+	 */
+	public void invalidateResolvedReferences() {
+		resolvedSource = null;
+		resolvedTarget = null;
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -15,38 +15,101 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.graph;
 
-import java.util.Optional;
-
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
-import com.eclipsesource.glsp.graph.impl.GModelChangeNotifierImpl;
+import com.eclipsesource.glsp.graph.impl.GModelObserver;
 
 public interface GModelChangeNotifier {
 
 	public static GModelChangeNotifier get(GModelElement element) {
-		EObject root = EcoreUtil.getRootContainer(element);
-		GModelChangeNotifier existingNotifier = (GModelChangeNotifierImpl) EcoreUtil.getExistingAdapter(root,
-				GModelChangeNotifierImpl.class);
-		return Optional.ofNullable(existingNotifier).orElseGet(() -> create(element));
+		return GModelObserver.get(EcoreUtil.getRootContainer(element)).getChangeNotifier();
 	}
 
+	/**
+	 * Returns the change notifier of the model that contains the given element.
+	 * There is at most one notifier per model, as it is maintained by the
+	 * {@link GModelObserver} of the model. If the model already has a notifier,
+	 * the existing notifier and its listeners are returned instead of a new
+	 * notifier, so this method is equivalent to {@link #get(GModelElement)}.
+	 * 
+	 * @param element an element of the model
+	 * @return the change notifier of the model
+	 */
 	public static GModelChangeNotifier create(GModelElement element) {
-		return new GModelChangeNotifierImpl(EcoreUtil.getRootContainer(element));
+		return get(element);
 	}
 
 	public static void remove(GModelElement element) {
-		EObject root = EcoreUtil.getRootContainer(element);
-		GModelChangeNotifierImpl existingNotifier = (GModelChangeNotifierImpl) EcoreUtil.getExistingAdapter(root,
-				GModelChangeNotifierImpl.class);
-		if (existingNotifier == null) {
-			return;
+		GModelObserver observer = GModelObserver.find(EcoreUtil.getRootContainer(element));
+		if (observer != null) {
+			observer.removeChangeNotifier();
 		}
-		existingNotifier.unsetTarget(root);
 	}
 
+	/**
+	 * Adds a listener that is notified about all changes. A listener is notified
+	 * at most once per change, i.e., adding it again has no effect and replaces
+	 * any subscriptions it has been added with.
+	 * 
+	 * @param listener the listener to add
+	 */
 	void addListener(GModelListener listener);
 
+	/**
+	 * Adds a listener that is only notified about the changes matching the given
+	 * subscription. A listener can be added with several subscriptions and is
+	 * notified once per change that matches any of them. If the listener has
+	 * been added for all changes already, the subscription has no effect.
+	 * 
+	 * @param listener     the listener to add
+	 * @param subscription the changes the listener is interested in
+	 */
+	void addListener(GModelListener listener, GModelSubscription subscription);
+
+	/**
+	 * Removes the given listener together with all its subscriptions.
+	 * 
+	 * @param listener the listener to remove
+	 */
 	void removeListener(GModelListener listener);
 
+	void addChangeSetListener(GModelChangeSetListener listener);
+
+	void removeChangeSetListener(GModelChangeSetListener listener);
+
+	/**
+	 * Begins a transaction. Until the transaction is committed, changes are
+	 * aggregated into one {@link GModelChangeSet} for the registered
+	 * {@link GModelChangeSetListener change set listeners}. Transactions may be
+	 * nested, in which case the changes are delivered when the outermost
+	 * transaction is committed. Plain {@link GModelListener listeners} are still
+	 * notified about every single change.
+	 */
+	void beginTransaction();
+
+	/**
+	 * Commits the current transaction and delivers the aggregated changes if it
+	 * is the outermost one.
+	 * 
+	 * @throws IllegalStateException if no transaction is active
+	 */
+	void commitTransaction();
+
+	boolean isInTransaction();
+
+	/**
+	 * Runs the given runnable within a transaction that is committed even if the
+	 * runnable fails, as the changes applied so far need to be delivered anyway.
+	 * 
+	 * @param runnable the changes to perform
+	 */
+	default void runInTransaction(Runnable runnable) {
+		beginTransaction();
+		try {
+			runnable.run();
+		} finally {
+			commitTransaction();
+		}
+	}
+
 }
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph;
+
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Aggregated changes of a model within one transaction of the
+ * {@link GModelChangeNotifier}. Changes of nested objects that are not model
+ * elements themselves, e.g. the coordinates of a position, are attributed to
+ * the containing model element and its containment feature, e.g.
+ * {@link GraphPackage.Literals#GBOUNDS_AWARE__POSITION}.
+ */
+public interface GModelChangeSet {
+
+	/**
+	 * Returns the model elements whose features have been changed, in the order
+	 * they were first changed.
+	 * 
+	 * @return the changed elements
+	 */
+	Set<GModelElement> getTouchedElements();
+
+	/**
+	 * Returns the features of the given element that have been changed.
+	 * 
+	 * @param element the changed element
+	 * @return the changed features or an empty set if the element was not changed
+	 */
+	Set<EStructuralFeature> getChangedFeatures(GModelElement element);
+
+	/**
+	 * Returns the features that have been changed on any model element.
+	 * 
+	 * @return all changed features
+	 */
+	Set<EStructuralFeature> getChangedFeatures();
+
+	/**
+	 * Returns the roots of the subtrees that have been added to the model and
+	 * were not removed again within the same transaction. Elements that have
+	 * been moved to another parent are both added and removed.
+	 * 
+	 * @return the added subtrees
+	 */
+	Set<GModelElement> getAddedElements();
+
+	/**
+	 * Returns the roots of the subtrees that have been removed from the model and
+	 * were not added to the same parent again within the same transaction.
+	 * Elements that have been moved to another parent are both added and
+	 * removed.
+	 * 
+	 * @return the removed subtrees
+	 */
+	Set<GModelElement> getRemovedElements();
+
+	/**
+	 * Returns the element that contained the given removed element before the
+	 * transaction.
+	 * 
+	 * @param removedElement one of the {@link #getRemovedElements() removed
+	 *                       elements}
+	 * @return the former parent or <code>null</code> if the element has not been
+	 *         removed
+	 */
+	GModelElement getFormerParent(GModelElement removedElement);
+
+	/**
+	 * Returns the elements whose children have changed their order, because
+	 * children have been moved within the list, or have been added at another
+	 * place than the end of the list or the place they have been removed from.
+	 * 
+	 * @return the elements with reordered children
+	 */
+	Set<GModelElement> getReorderedElements();
+
+	/**
+	 * Returns the number of notifications that have been aggregated into this
+	 * change set.
+	 * 
+	 * @return the number of notifications
+	 */
+	int getNotificationCount();
+
+	boolean isEmpty();
+
+}
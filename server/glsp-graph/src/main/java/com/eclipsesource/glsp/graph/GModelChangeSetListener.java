@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph;
+
+/**
+ * Listener that receives the changes of a model aggregated per transaction of
+ * the {@link GModelChangeNotifier} instead of every single notification.
+ * Changes that are performed outside of a transaction are delivered
+ * immediately as change sets with a single notification.
+ */
+public interface GModelChangeSetListener {
+
+	void changesCommitted(GModelChangeSet changeSet);
+
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of element ids that is backed by a {@link BitSet} over the id handles
+ * interned by a {@link GModelIndex}. Compared to a hash set of strings, it
+ * needs one bit per interned id and adding all indexed elements does not copy
+ * any id.
+ * <p>
+ * The set retains the handles of its ids, so they stay valid while the
+ * elements are removed from the model. The handles are released when the ids
+ * are removed from this set, so a set that is no longer used should be
+ * {@link #clear() cleared}.
+ * </p>
+ */
+public class GModelElementIdSet extends AbstractSet<String> {
+
+	private final GModelIndex index;
+	private final BitSet handles = new BitSet();
+
+	public GModelElementIdSet(GModelIndex index) {
+		this.index = index;
+	}
+
+	public GModelIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Adds the ids of all elements that are currently contained in the index.
+	 */
+	public void addAllIndexed() {
+		BitSet added = new BitSet();
+		index.collectIndexedHandles(added);
+		added.andNot(handles);
+		for (int handle = added.nextSetBit(0); handle >= 0; handle = added.nextSetBit(handle + 1)) {
+			index.retainHandle(handle);
+		}
+		handles.or(added);
+	}
+
+	@Override
+	public boolean add(String elementId) {
+		int handle = index.getHandle(elementId);
+		if (handles.get(handle)) {
+			return false;
+		}
+		handles.set(handle);
+		index.retainHandle(handle);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object elementId) {
+		if (!(elementId instanceof String)) {
+			return false;
+		}
+		int handle = index.findHandle((String) elementId);
+		return handle >= 0 && handles.get(handle);
+	}
+
+	@Override
+	public boolean remove(Object elementId) {
+		if (!contains(elementId)) {
+			return false;
+		}
+		int handle = index.findHandle((String) elementId);
+		handles.clear(handle);
+		index.releaseHandle(handle);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		for (int handle = handles.nextSetBit(0); handle >= 0; handle = handles.nextSetBit(handle + 1)) {
+			index.releaseHandle(handle);
+		}
+		handles.clear();
+	}
+
+	@Override
+	public int size() {
+		return handles.cardinality();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return handles.isEmpty();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+			private int next = handles.nextSetBit(0);
+			private int current = -1;
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public String next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				current = next;
+				next = handles.nextSetBit(next + 1);
+				return index.getElementId(current);
+			}
+
+			@Override
+			public void remove() {
+				if (current < 0) {
+					throw new IllegalStateException();
+				}
+				handles.clear(current);
+				index.releaseHandle(current);
+				current = -1;
+			}
+		};
+	}
+
+}
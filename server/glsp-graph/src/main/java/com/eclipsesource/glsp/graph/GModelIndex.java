@@ -15,7 +15,10 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.graph;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -23,47 +26,189 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
-import com.eclipsesource.glsp.graph.impl.GModelIndexImpl;
+import com.eclipsesource.glsp.graph.impl.GModelObserver;
 
 public interface GModelIndex {
 
 	public static GModelIndex get(GModelElement element) {
-		EObject root = EcoreUtil.getRootContainer(element);
-		GModelIndex existingIndex = (GModelIndexImpl) EcoreUtil.getExistingAdapter(root, GModelIndexImpl.class);
-		return Optional.ofNullable(existingIndex).orElseGet(() -> (create(element)));
+		return GModelObserver.get(EcoreUtil.getRootContainer(element)).getIndex();
 	}
 
+	/**
+	 * Returns the index of the model that contains the given element. There is
+	 * at most one index per model, as it is maintained by the
+	 * {@link GModelObserver} of the model. If the model already has an index, the
+	 * existing index is returned instead of a new one, so this method is
+	 * equivalent to {@link #get(GModelElement)}. Call
+	 * {@link #remove(GModelElement)} first to rebuild the index from scratch.
+	 * 
+	 * @param element an element of the model
+	 * @return the index of the model
+	 */
 	public static GModelIndex create(GModelElement element) {
-		return new GModelIndexImpl(EcoreUtil.getRootContainer(element));
+		return get(element);
 	}
 
 	public static void remove(GModelElement element) {
-		EObject root = EcoreUtil.getRootContainer(element);
-		GModelIndexImpl existingIndex = (GModelIndexImpl) EcoreUtil.getExistingAdapter(root, GModelIndexImpl.class);
-		if (existingIndex == null) {
-			return;
+		GModelObserver observer = GModelObserver.find(EcoreUtil.getRootContainer(element));
+		if (observer != null) {
+			observer.removeIndex();
 		}
-		existingIndex.unsetTarget(root);
 	}
 
 	Optional<GModelElement> get(String elementId);
 
 	Set<GModelElement> getAll(Collection<String> elementIds);
 
+	/**
+	 * Returns the edges whose target id refers to the given node. The returned
+	 * collection is an unmodifiable live view that reflects subsequent changes of
+	 * the model, so callers that modify the model while iterating need to copy it
+	 * first.
+	 * 
+	 * @param node the target node
+	 * @return an unmodifiable view on the incoming edges of the node
+	 */
 	Collection<GEdge> getIncomingEdges(GModelElement node);
 
+	/**
+	 * Returns the edges whose source id refers to the given node. The returned
+	 * collection is an unmodifiable live view that reflects subsequent changes of
+	 * the model, so callers that modify the model while iterating need to copy it
+	 * first.
+	 * 
+	 * @param node the source node
+	 * @return an unmodifiable view on the outgoing edges of the node
+	 */
 	Collection<GEdge> getOutgoingEdges(GModelElement node);
 
+	int getIncomingEdgeCount(GModelElement node);
+
+	int getOutgoingEdgeCount(GModelElement node);
+
 	Set<String> allIds();
 
+	/**
+	 * Returns the dense integer handle of the given element id, interning the id
+	 * if it has no handle yet. A handle stays valid as long as an element with
+	 * the id is contained in this index or the handle is retained. Afterwards it
+	 * is released and may be reused for another id.
+	 * 
+	 * @param elementId the element id
+	 * @return the handle of the id
+	 * @see #retainHandle(int)
+	 */
+	int getHandle(String elementId);
+
+	/**
+	 * Keeps the given handle valid until it is released again, also if the
+	 * element with its id is removed from the model. Each call has to be balanced
+	 * by a call of {@link #releaseHandle(int)}.
+	 * 
+	 * @param handle the handle to retain
+	 */
+	void retainHandle(int handle);
+
+	/**
+	 * Releases a handle that has been retained before. Once the handle is neither
+	 * retained nor used by an element of this index, the id is no longer
+	 * interned.
+	 * 
+	 * @param handle the handle to release
+	 */
+	void releaseHandle(int handle);
+
+	/**
+	 * Returns the handle of the given element id or -1 if the id has not been
+	 * interned yet.
+	 * 
+	 * @param elementId the element id
+	 * @return the handle of the id or -1
+	 */
+	int findHandle(String elementId);
+
+	String getElementId(int handle);
+
+	/**
+	 * Sets the bits of the handles of all elements that are currently contained
+	 * in this index in the given bit set.
+	 * 
+	 * @param handles the bit set to add the handles to
+	 */
+	void collectIndexedHandles(BitSet handles);
+
 	GModelElement getRoot();
 
+	/**
+	 * Registers a secondary index on the given single-valued attribute, which
+	 * maps attribute values to the elements holding them and is updated
+	 * incrementally on changes of the attribute. Registering the same attribute
+	 * twice has no effect.
+	 * 
+	 * @param attribute the attribute to index
+	 */
+	void addAttributeIndex(EAttribute attribute);
+
+	/**
+	 * Returns all indexed elements whose value of the given attribute equals the
+	 * given value. If no secondary index has been registered for the attribute
+	 * yet, it is registered on the first call.
+	 * 
+	 * @param attribute the indexed attribute
+	 * @param value     the attribute value to look up
+	 * @return an unmodifiable view on the matching elements
+	 */
+	Collection<GModelElement> getByAttribute(EAttribute attribute, Object value);
+
+	/**
+	 * Returns the spatial index of this model. The spatial index is created on
+	 * first access and is kept up to date by this index afterwards.
+	 * 
+	 * @return the spatial index
+	 */
+	GSpatialIndex getSpatialIndex();
+
 	int getCounter(EClass eClass, Function<Integer, String> idProvider);
 
+	/**
+	 * Returns the smallest counter that is equal to or greater than the number of
+	 * indexed elements of the given type and for which no element with the id
+	 * <code>idPrefix + counter</code> exists. In contrast to
+	 * {@link #getCounter(EClass, Function)} the used counters are tracked by the
+	 * index, so no candidate ids need to be probed.
+	 * 
+	 * @param eClass   the type of the element to create
+	 * @param idPrefix the prefix of the id of the element to create
+	 * @return the next free counter
+	 */
+	int getCounter(EClass eClass, String idPrefix);
+
+	/**
+	 * Returns whether the given ancestor is the given descendant or one of its
+	 * (transitive) containers. The check is answered from a pre-order numbering
+	 * of the model that is recomputed lazily after containment changes.
+	 * 
+	 * @param ancestor   the potential ancestor
+	 * @param descendant the potential descendant
+	 * @return <code>true</code> if ancestor contains or is the descendant
+	 */
+	boolean isAncestorOf(GModelElement ancestor, GModelElement descendant);
+
+	/**
+	 * Returns the given element and all its (transitive) children in pre-order,
+	 * i.e., every element is followed by its own subtree. The returned list is an
+	 * unmodifiable view that is only valid until the next containment change of
+	 * the model.
+	 * 
+	 * @param element the root of the subtree
+	 * @return the elements of the subtree in pre-order
+	 */
+	List<GModelElement> getSubtree(GModelElement element);
+
 	/**
 	 * Returns the first element of type clazz starting from the element with the
 	 * given id and walking up the parent hierarchy.
@@ -82,7 +227,9 @@ public interface GModelIndex {
 
 	/**
 	 * Returns the first element of type clazz starting from the given element and
-	 * walking up the parent hierarchy.
+	 * walking up the parent hierarchy. The walk is bounded by the depth of the
+	 * element, so it does not use the tree order of {@link #isAncestorOf} and
+	 * {@link #getSubtree}, which can only check an ancestor that is already known.
 	 * 
 	 * @param element element to start the search from
 	 * @param clazz   class of which the found element should be an instance
@@ -138,13 +285,68 @@ public interface GModelIndex {
 		return parent != null ? findElement(parent, predicate) : Optional.empty();
 	}
 
+	/**
+	 * Returns all indexed elements that are instances of the given class. The
+	 * result is computed from the type buckets of this index, so nested elements
+	 * on any level are included without walking the model.
+	 * 
+	 * @param clazz class of which the elements should be an instance
+	 * @return a new set containing all matching elements
+	 */
 	default public <T extends GModelElement> Set<T> getAllByClass(Class<T> clazz) {
-		return findAll((GModelElement) this.getRoot(), clazz);
+		return streamAllByClass(clazz).collect(Collectors.toSet());
 	}
 
+	/**
+	 * Returns a lazy stream over all indexed elements that are instances of the
+	 * given class. The stream is backed by the type buckets of this index and must
+	 * not be consumed while the model is modified.
+	 * 
+	 * @param clazz class of which the elements should be an instance
+	 * @return a stream of all matching elements
+	 */
+	<T extends GModelElement> Stream<T> streamAllByClass(Class<T> clazz);
+
+	/**
+	 * Returns all indexed elements of the given {@link EClass}.
+	 * 
+	 * @param eClass          the type of the elements
+	 * @param includeSubtypes whether elements of sub types of the given type
+	 *                        should be included
+	 * @return an unmodifiable snapshot of all matching elements, which is not
+	 *         affected by later changes of the model
+	 */
+	Collection<GModelElement> getAllByEClass(EClass eClass, boolean includeSubtypes);
+
+	/**
+	 * Returns all elements of the given type that are contained in the given
+	 * parent on any level, including the parent itself.
+	 * 
+	 * @param parent element to start the search from
+	 * @param type   class of which the found elements should be an instance
+	 * @return a new set containing all matching elements
+	 */
 	default public <T extends GModelElement> Set<T> findAll(GModelElement parent, Class<T> type) {
-		return getStream(parent).flatMap(this::getStream).filter(type::isInstance).map(type::cast)
-				.collect(Collectors.toSet());
+		if (parent == getRoot()) {
+			return getAllByClass(type);
+		}
+		Set<T> result = new HashSet<>();
+		collectAll(parent, type, result);
+		return result;
+	}
+
+	private <T extends GModelElement> void collectAll(GModelElement element, Class<T> type, Set<T> result) {
+		if (element == null) {
+			return;
+		}
+		if (type.isInstance(element)) {
+			result.add(type.cast(element));
+		}
+		if (element.getChildren() != null) {
+			for (GModelElement child : element.getChildren()) {
+				collectAll(child, type, result);
+			}
+		}
 	}
 
 	default public Stream<GModelElement> getStream(GModelElement element) {
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Declares the changes a {@link GModelListener} is interested in, so that the
+ * {@link GModelChangeNotifier} only dispatches matching notifications to it.
+ * A subscription matches a change of a model element if the element is an
+ * instance of one of the subscribed types and the changed feature is one of
+ * the subscribed features. An empty set of types or features matches any type
+ * or feature respectively. Changes of nested objects, e.g. the coordinates of
+ * a position, are matched against the containing model element and its
+ * containment feature, e.g. {@link GraphPackage.Literals#GBOUNDS_AWARE__POSITION}.
+ */
+public final class GModelSubscription {
+
+	private final Set<EClass> types;
+	private final Set<EStructuralFeature> features;
+
+	private GModelSubscription(Set<EClass> types, Set<EStructuralFeature> features) {
+		this.types = Collections.unmodifiableSet(types);
+		this.features = Collections.unmodifiableSet(features);
+	}
+
+	public static GModelSubscription toFeatures(EStructuralFeature... features) {
+		return new GModelSubscription(Collections.emptySet(), new LinkedHashSet<>(Arrays.asList(features)));
+	}
+
+	public static GModelSubscription toTypes(EClass... types) {
+		return new GModelSubscription(new LinkedHashSet<>(Arrays.asList(types)), Collections.emptySet());
+	}
+
+	public GModelSubscription withFeatures(EStructuralFeature... features) {
+		Set<EStructuralFeature> newFeatures = new LinkedHashSet<>(this.features);
+		newFeatures.addAll(Arrays.asList(features));
+		return new GModelSubscription(types, newFeatures);
+	}
+
+	public GModelSubscription withTypes(EClass... types) {
+		Set<EClass> newTypes = new LinkedHashSet<>(this.types);
+		newTypes.addAll(Arrays.asList(types));
+		return new GModelSubscription(newTypes, features);
+	}
+
+	public Set<EClass> getTypes() {
+		return types;
+	}
+
+	public Set<EStructuralFeature> getFeatures() {
+		return features;
+	}
+
+	public boolean matches(EClass eClass, EStructuralFeature feature) {
+		return (features.isEmpty() || features.contains(feature))
+				&& (types.isEmpty() || types.stream().anyMatch(type -> type.isSuperTypeOf(eClass)));
+	}
+
+}
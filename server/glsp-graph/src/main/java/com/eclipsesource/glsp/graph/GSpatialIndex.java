@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spatial index over the {@link GBoundsAware} elements of a model. The index
+ * works on absolute bounds, i.e., the positions of all bounds-aware ancestors
+ * below the root are added up, and is kept up to date by the
+ * {@link GModelIndex} when elements are added, removed, moved or resized.
+ */
+public interface GSpatialIndex {
+
+	/**
+	 * Returns all elements whose absolute bounds intersect with the given bounds.
+	 * 
+	 * @param bounds the absolute bounds to query
+	 * @return the intersecting elements
+	 */
+	List<GModelElement> getElementsIntersecting(GBounds bounds);
+
+	/**
+	 * Returns all elements whose absolute bounds are fully contained in the given
+	 * bounds, e.g., for marquee selection.
+	 * 
+	 * @param bounds the absolute bounds to query
+	 * @return the contained elements
+	 */
+	List<GModelElement> getElementsContainedIn(GBounds bounds);
+
+	/**
+	 * Returns all elements whose absolute bounds contain the given point.
+	 * 
+	 * @param point the absolute point to query
+	 * @return the elements at the given point
+	 */
+	List<GModelElement> getElementsAt(GPoint point);
+
+	Optional<GBounds> getAbsoluteBounds(GModelElement element);
+
+}
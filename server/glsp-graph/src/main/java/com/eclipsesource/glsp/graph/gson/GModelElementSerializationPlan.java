@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.gson;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Plan to serialize the instances of one implementation class of a GModel
+ * element. The plan is compiled once from the declared fields of the class
+ * and its superclasses, in the same order and with the same exclusions as the
+ * reflective serialization, and maps every field to the id of its structural
+ * feature. Writing an element then only checks and reads the features by id
+ * and does not use any reflection.
+ */
+public class GModelElementSerializationPlan {
+
+	private final Gson gson;
+	private final PropertyWriter[] writers;
+
+	protected GModelElementSerializationPlan(Gson gson, List<PropertyWriter> writers) {
+		this.gson = gson;
+		this.writers = writers.toArray(new PropertyWriter[writers.size()]);
+	}
+
+	/**
+	 * Compiles the plan for the given implementation class of the given EClass.
+	 * Fields that are excluded by the given gson instance, transient or static
+	 * fields and fields without a corresponding structural feature are skipped.
+	 */
+	public static GModelElementSerializationPlan compile(Gson gson, Class<?> type, EClass eClass) {
+		List<PropertyWriter> writers = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (gson.excluder().excludeField(field, true) || Modifier.isTransient(modifiers)
+						|| Modifier.isStatic(modifiers) || !names.add(field.getName())) {
+					continue;
+				}
+				EStructuralFeature feature = eClass.getEStructuralFeature(field.getName());
+				if (feature != null) {
+					writers.add(new PropertyWriter(eClass.getFeatureID(feature), field.getName()));
+				}
+			}
+		}
+		return new GModelElementSerializationPlan(gson, writers);
+	}
+
+	/**
+	 * Writes all set properties of the given element, without the enclosing
+	 * braces of the JSON object.
+	 */
+	public void writeProperties(JsonWriter out, GModelElement instance) throws IOException {
+		InternalEObject object = (InternalEObject) instance;
+		for (PropertyWriter writer : writers) {
+			if (object.eIsSet(writer.featureId)) {
+				out.name(writer.name);
+				Object value = object.eGet(writer.featureId, false, true);
+				if (value == null) {
+					out.nullValue();
+				} else if (value == instance) {
+					throw new RuntimeException("Object has a reference to itself.");
+				} else {
+					writer.getAdapter(gson, value.getClass()).write(out, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes one property. The type adapter of the last written value class is
+	 * kept, as the values of a feature almost always have the same class.
+	 */
+	protected static class PropertyWriter {
+		private final int featureId;
+		private final String name;
+		private volatile CachedAdapter cachedAdapter;
+
+		protected PropertyWriter(int featureId, String name) {
+			this.featureId = featureId;
+			this.name = name;
+		}
+
+		@SuppressWarnings("unchecked")
+		TypeAdapter<Object> getAdapter(Gson gson, Class<?> valueType) {
+			CachedAdapter cached = cachedAdapter;
+			if (cached == null || cached.valueType != valueType) {
+				cached = new CachedAdapter(valueType, (TypeAdapter<Object>) gson.getAdapter(valueType));
+				cachedAdapter = cached;
+			}
+			return cached.adapter;
+		}
+	}
+
+	private static final class CachedAdapter {
+		private final Class<?> valueType;
+		private final TypeAdapter<Object> adapter;
+
+		CachedAdapter(Class<?> valueType, TypeAdapter<Object> adapter) {
+			this.valueType = valueType;
+			this.adapter = adapter;
+		}
+	}
+
+}
@@ -16,18 +16,16 @@
 package com.eclipsesource.glsp.graph.gson;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EClass;
-import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
 
 import com.eclipsesource.glsp.graph.GModelElement;
 import com.google.gson.Gson;
@@ -44,11 +42,19 @@ public class GModelElementTypeAdapter extends PropertyBasedTypeAdapter<GModelEle
 
 	private final Gson gson;
 	private final Map<String, EClass> typeMap;
+	private final Map<Class<?>, GModelElementSerializationPlan> serializationPlans;
 
+	/**
+	 * Creates the adapters for all subtypes of {@link GModelElement}. The
+	 * adapters that are created for the same {@link Gson} instance share their
+	 * serialization plans, so each element class is compiled only once.
+	 */
 	public static class Factory implements TypeAdapterFactory {
 
 		private final String typeAttribute;
 		private final Map<String, EClass> typeMap;
+		private Gson serializationPlansOwner;
+		private Map<Class<?>, GModelElementSerializationPlan> serializationPlans;
 
 		public Factory(String typeAttribute, Map<String, EClass> typeMap) {
 			this.typeAttribute = typeAttribute;
@@ -60,15 +66,39 @@ public class GModelElementTypeAdapter extends PropertyBasedTypeAdapter<GModelEle
 		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
 			if (!GModelElement.class.isAssignableFrom(type.getRawType()))
 				return null;
-			return (TypeAdapter<T>) new GModelElementTypeAdapter(gson, typeAttribute, typeMap);
+			return (TypeAdapter<T>) new GModelElementTypeAdapter(gson, typeAttribute, typeMap,
+					getSerializationPlans(gson));
+		}
+
+		/**
+		 * Returns the plans of the given gson instance. The plans refer to the
+		 * instance that compiled them, so they are only kept for the latest one.
+		 */
+		protected synchronized Map<Class<?>, GModelElementSerializationPlan> getSerializationPlans(Gson gson) {
+			if (serializationPlansOwner != gson) {
+				serializationPlansOwner = gson;
+				serializationPlans = new ConcurrentHashMap<>();
+			}
+			return serializationPlans;
 		}
 
 	}
 
 	public GModelElementTypeAdapter(Gson gson, String typeAttribute, Map<String, EClass> typeMap) {
+		this(gson, typeAttribute, typeMap, new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Creates an adapter that takes the serialization plans from and adds them
+	 * to the given map, which must be thread-safe and only contain plans of the
+	 * given gson instance.
+	 */
+	public GModelElementTypeAdapter(Gson gson, String typeAttribute, Map<String, EClass> typeMap,
+			Map<Class<?>, GModelElementSerializationPlan> serializationPlans) {
 		super(gson, typeAttribute);
 		this.gson = gson;
 		this.typeMap = typeMap;
+		this.serializationPlans = serializationPlans;
 	}
 
 	@Override
@@ -88,80 +118,55 @@ public class GModelElementTypeAdapter extends PropertyBasedTypeAdapter<GModelEle
 		if (value == null) {
 			out.nullValue();
 		} else {
-			try {
-				out.beginObject();
-				Set<String> written = new HashSet<>();
-				writeProperties(out, value, value.getClass(), written);
-				out.endObject();
-			} catch (IllegalAccessException e) {
-				throw new RuntimeException(e);
-			}
+			out.beginObject();
+			getSerializationPlan(value).writeProperties(out, value);
+			out.endObject();
 		}
 	}
 
-	@Override
-	@SuppressWarnings("unchecked")
-	protected void assignProperty(GModelElement instance, String propertyName, JsonReader in)
-			throws IllegalAccessException {
-		try {
-			Field field = findField(instance.getClass(), propertyName);
-			Object value = gson.fromJson(in, field.getGenericType());
-			if (EList.class.isAssignableFrom(field.getType()) && value instanceof Collection) {
-				Collection<?> values = (Collection<?>) value;
-				EStructuralFeature feature = instance.eClass().getEStructuralFeature(propertyName);
-				Object list = instance.eGet(feature);
-				if (list instanceof List<?>) {
-					((List<Object>) list).addAll(values);
-					return;
-				}
-			}
-			field.set(instance, value);
-		} catch (NoSuchFieldException e) {
-			// Ignore this property
-		}
+	/**
+	 * Returns the serialization plan for the class of the given element, which is
+	 * compiled on first use.
+	 */
+	protected GModelElementSerializationPlan getSerializationPlan(GModelElement element) {
+		return serializationPlans.computeIfAbsent(element.getClass(),
+				type -> GModelElementSerializationPlan.compile(gson, type, element.eClass()));
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
-	protected void assignProperty(GModelElement instance, String propertyName, JsonElement element)
-			throws IllegalAccessException {
-		try {
-			Field field = findField(instance.getClass(), propertyName);
-			Object value = gson.fromJson(element, field.getGenericType());
-			if (EList.class.isAssignableFrom(field.getType()) && value instanceof Collection) {
-				Collection<?> values = (Collection<?>) value;
-				EStructuralFeature feature = instance.eClass().getEStructuralFeature(propertyName);
-				Object list = instance.eGet(feature);
-				if (list instanceof List<?>) {
-					((List<Object>) list).addAll(values);
-					return;
-				}
-			}
-			field.set(instance, value);
-		} catch (NoSuchFieldException e) {
+	protected void assignProperty(GModelElement instance, String propertyName, JsonReader in) throws IOException {
+		Optional<PropertySetter> setter = PropertySetter.get(instance.getClass(), propertyName);
+		if (setter.isPresent()) {
+			assign(instance, setter.get(), gson.fromJson(in, setter.get().getGenericType()));
+		} else {
 			// Ignore this property
+			in.skipValue();
 		}
 	}
 
 	@Override
-	protected void writeProperties(JsonWriter out, GModelElement instance, Class<?> type, Set<String> written)
-			throws IOException, IllegalAccessException {
-		for (Field field : type.getDeclaredFields()) {
-			if (!gson.excluder().excludeField(field, true) && isSet(instance, field)) {
-				int modifiers = field.getModifiers();
-				if (!Modifier.isTransient(modifiers) && !Modifier.isStatic(modifiers) && written.add(field.getName())) {
-					writeProperty(out, instance, field);
-				}
-			}
-		}
-		Class<?> superType = type.getSuperclass();
-		if (superType != null) {
-			writeProperties(out, instance, superType, written);
+	protected void assignProperty(GModelElement instance, String propertyName, JsonElement element) {
+		Optional<PropertySetter> setter = PropertySetter.get(instance.getClass(), propertyName);
+		if (setter.isPresent()) {
+			assign(instance, setter.get(), gson.fromJson(element, setter.get().getGenericType()));
 		}
 	}
 
-	protected boolean isSet(GModelElement instance, Field field) {
-		return instance.eIsSet(instance.eClass().getEStructuralFeature(field.getName()));
+	/**
+	 * Assigns the given value to the property of the given element. The values of
+	 * list features are added to the existing list of the element.
+	 */
+	@SuppressWarnings("unchecked")
+	protected void assign(GModelElement instance, PropertySetter setter, Object value) {
+		if (EList.class.isAssignableFrom(setter.getType()) && value instanceof Collection) {
+			int featureId = setter.getFeatureId(instance);
+			Object list = featureId >= 0 ? ((InternalEObject) instance).eGet(featureId, true, true) : null;
+			if (list instanceof List<?>) {
+				((List<Object>) list).addAll((Collection<?>) value);
+				return;
+			}
+		}
+		setter.set(instance, value);
 	}
 
 }
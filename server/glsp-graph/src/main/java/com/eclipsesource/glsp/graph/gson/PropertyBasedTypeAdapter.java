@@ -20,6 +20,7 @@ import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import com.google.gson.Gson;
@@ -79,38 +80,33 @@ public abstract class PropertyBasedTypeAdapter<T> extends TypeAdapter<T> {
 
 	protected abstract T createInstance(String parameter);
 
-	protected void assignProperty(T instance, String propertyName, JsonReader in) throws IllegalAccessException {
-		try {
-			Field field = findField(instance.getClass(), propertyName);
-			Object value = gson.fromJson(in, field.getGenericType());
-			field.set(instance, value);
-		} catch (NoSuchFieldException e) {
+	protected void assignProperty(T instance, String propertyName, JsonReader in)
+			throws IOException, IllegalAccessException {
+		Optional<PropertySetter> setter = PropertySetter.get(instance.getClass(), propertyName);
+		if (setter.isPresent()) {
+			Object value = gson.fromJson(in, setter.get().getGenericType());
+			setter.get().set(instance, value);
+		} else {
 			// Ignore this property
+			in.skipValue();
 		}
 	}
 
 	protected void assignProperty(T instance, String propertyName, JsonElement element) throws IllegalAccessException {
-		try {
-			Field field = findField(instance.getClass(), propertyName);
-			Object value = gson.fromJson(element, field.getGenericType());
-			field.set(instance, value);
-		} catch (NoSuchFieldException e) {
-			// Ignore this property
+		Optional<PropertySetter> setter = PropertySetter.get(instance.getClass(), propertyName);
+		if (setter.isPresent()) {
+			Object value = gson.fromJson(element, setter.get().getGenericType());
+			setter.get().set(instance, value);
 		}
 	}
 
+	/**
+	 * Returns the accessible field with the given name of the given class or one
+	 * of its superclasses. The lookup is cached by {@link PropertySetter}.
+	 */
 	protected Field findField(Class<?> type, String propertyName) throws NoSuchFieldException {
-		try {
-			Field field = type.getDeclaredField(propertyName);
-			field.setAccessible(true);
-			return field;
-		} catch (NoSuchFieldException e) {
-			Class<?> superType = type.getSuperclass();
-			if (superType != null)
-				return findField(superType, propertyName);
-			else
-				throw e;
-		}
+		return PropertySetter.get(type, propertyName).map(PropertySetter::getField)
+				.orElseThrow(() -> new NoSuchFieldException(propertyName));
 	}
 
 	protected JsonElement toTree(JsonReader in) throws IOException {
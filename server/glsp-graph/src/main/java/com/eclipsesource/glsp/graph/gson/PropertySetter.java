@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.gson;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Assigns the value of a JSON property to the field of the same name. The
+ * setters of a class are resolved on first use, including the search through
+ * its superclasses, and are shared by all type adapters and Gson instances.
+ * For EMF objects the setter also knows the id of the structural feature that
+ * corresponds to the field.
+ */
+public class PropertySetter {
+
+	private static final int UNRESOLVED_FEATURE = -2;
+	private static final int NO_FEATURE = -1;
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final ClassValue<Map<String, Optional<PropertySetter>>> SETTERS = new ClassValue<Map<String, Optional<PropertySetter>>>() {
+		@Override
+		protected Map<String, Optional<PropertySetter>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final Field field;
+	private final MethodHandle setter;
+	private volatile int featureId = UNRESOLVED_FEATURE;
+
+	protected PropertySetter(Field field) throws IllegalAccessException {
+		this.field = field;
+		field.setAccessible(true);
+		this.setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+	}
+
+	/**
+	 * Returns the setter for the property with the given name of the given class,
+	 * or an empty optional if neither the class nor one of its superclasses
+	 * declares a field with that name.
+	 */
+	public static Optional<PropertySetter> get(Class<?> type, String propertyName) {
+		return SETTERS.get(type).computeIfAbsent(propertyName, name -> create(type, name));
+	}
+
+	private static Optional<PropertySetter> create(Class<?> type, String propertyName) {
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			try {
+				return Optional.of(new PropertySetter(current.getDeclaredField(propertyName)));
+			} catch (NoSuchFieldException e) {
+				// continue with the superclass
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException("Cannot access field " + propertyName + " of " + current, e);
+			}
+		}
+		return Optional.empty();
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public Class<?> getType() {
+		return field.getType();
+	}
+
+	public Type getGenericType() {
+		return field.getGenericType();
+	}
+
+	/**
+	 * Returns the id of the structural feature of the given object that
+	 * corresponds to the field, or <code>-1</code> if there is none. The id is
+	 * resolved once, as all instances of a class have the same EClass.
+	 */
+	public int getFeatureId(EObject instance) {
+		int id = featureId;
+		if (id == UNRESOLVED_FEATURE) {
+			EClass eClass = instance.eClass();
+			EStructuralFeature feature = eClass.getEStructuralFeature(field.getName());
+			id = feature != null ? eClass.getFeatureID(feature) : NO_FEATURE;
+			featureId = id;
+		}
+		return id;
+	}
+
+	/**
+	 * Assigns the given value to the field of the given instance, without
+	 * notifying any adapters.
+	 */
+	public void set(Object instance, Object value) {
+		try {
+			setter.invokeExact(instance, value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Cannot set field " + field.getName(), t);
+		}
+	}
+
+}
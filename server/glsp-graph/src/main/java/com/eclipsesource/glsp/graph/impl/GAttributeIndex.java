@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EAttribute;
+
+import com.eclipsesource.glsp.graph.GModelElement;
+
+/**
+ * Secondary index that maps the values of a single-valued {@link EAttribute}
+ * to the elements holding that value. It is kept up to date by the
+ * {@link GModelIndexImpl}.
+ */
+public class GAttributeIndex {
+
+	private final EAttribute attribute;
+	private final Map<Object, Set<GModelElement>> valueToElements = new HashMap<>();
+
+	public GAttributeIndex(EAttribute attribute) {
+		if (attribute.isMany()) {
+			throw new IllegalArgumentException("Only single-valued attributes can be indexed: " + attribute.getName());
+		}
+		this.attribute = attribute;
+	}
+
+	public EAttribute getAttribute() {
+		return attribute;
+	}
+
+	public boolean isIndexed(GModelElement element) {
+		return attribute.getEContainingClass().isSuperTypeOf(element.eClass());
+	}
+
+	public void add(GModelElement element) {
+		if (isIndexed(element)) {
+			add(element.eGet(attribute), element);
+		}
+	}
+
+	public void remove(GModelElement element) {
+		if (isIndexed(element)) {
+			remove(element.eGet(attribute), element);
+		}
+	}
+
+	public void update(GModelElement element, Object oldValue, Object newValue) {
+		remove(oldValue, element);
+		add(newValue, element);
+	}
+
+	public Collection<GModelElement> get(Object value) {
+		Set<GModelElement> elements = valueToElements.get(value);
+		return elements != null ? Collections.unmodifiableSet(elements) : Collections.emptySet();
+	}
+
+	protected void add(Object value, GModelElement element) {
+		valueToElements.computeIfAbsent(value, v -> new LinkedHashSet<>(2)).add(element);
+	}
+
+	protected void remove(Object value, GModelElement element) {
+		Set<GModelElement> elements = valueToElements.get(value);
+		if (elements != null && elements.remove(element) && elements.isEmpty()) {
+			valueToElements.remove(value);
+		}
+	}
+
+}
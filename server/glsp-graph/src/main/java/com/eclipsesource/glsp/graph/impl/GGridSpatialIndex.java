@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.eclipsesource.glsp.graph.GBounds;
+import com.eclipsesource.glsp.graph.GBoundsAware;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.GSpatialIndex;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+
+/**
+ * {@link GSpatialIndex} based on a uniform grid of square cells. Each element
+ * is registered in all cells its absolute bounds overlap, so point queries
+ * only look at a single cell and rectangle queries only at the covered cells.
+ * Elements that would span more than {@link #MAX_CELLS_PER_ELEMENT} cells are
+ * kept in a separate list instead, which is checked on every query.
+ */
+public class GGridSpatialIndex implements GSpatialIndex {
+
+	public static final double DEFAULT_CELL_SIZE = 256;
+	protected static final int MAX_CELLS_PER_ELEMENT = 64;
+
+	private final GModelElement root;
+	private final double cellSize;
+	private final Map<Long, List<Entry>> cells = new HashMap<>();
+	private final Set<Entry> largeEntries = new LinkedHashSet<>();
+	private final Map<GModelElement, Entry> elementToEntry = new HashMap<>();
+
+	public GGridSpatialIndex(GModelElement root) {
+		this(root, DEFAULT_CELL_SIZE);
+	}
+
+	public GGridSpatialIndex(GModelElement root, double cellSize) {
+		this.root = root;
+		this.cellSize = cellSize;
+	}
+
+	public void addAll(Collection<GModelElement> elements) {
+		elements.forEach(this::add);
+	}
+
+	public void add(GModelElement element) {
+		if (element == root || !(element instanceof GBoundsAware)) {
+			return;
+		}
+		remove(element);
+		Entry entry = new Entry(element);
+		computeAbsoluteBounds(entry);
+		elementToEntry.put(element, entry);
+		register(entry);
+	}
+
+	public void remove(GModelElement element) {
+		Entry entry = elementToEntry.remove(element);
+		if (entry != null) {
+			unregister(entry);
+		}
+	}
+
+	/**
+	 * Updates the given element after its size changed.
+	 */
+	public void update(GModelElement element) {
+		Entry entry = elementToEntry.get(element);
+		if (entry != null) {
+			unregister(entry);
+			computeAbsoluteBounds(entry);
+			register(entry);
+		}
+	}
+
+	/**
+	 * Updates the given element and all its descendants after its position
+	 * changed.
+	 */
+	public void updateSubtree(GModelElement element) {
+		update(element);
+		for (GModelElement child : element.getChildren()) {
+			updateSubtree(child);
+		}
+	}
+
+	@Override
+	public List<GModelElement> getElementsIntersecting(GBounds bounds) {
+		return query(bounds.getX(), bounds.getY(), bounds.getX() + bounds.getWidth(),
+				bounds.getY() + bounds.getHeight(), false);
+	}
+
+	@Override
+	public List<GModelElement> getElementsContainedIn(GBounds bounds) {
+		return query(bounds.getX(), bounds.getY(), bounds.getX() + bounds.getWidth(),
+				bounds.getY() + bounds.getHeight(), true);
+	}
+
+	@Override
+	public List<GModelElement> getElementsAt(GPoint point) {
+		return query(point.getX(), point.getY(), point.getX(), point.getY(), false);
+	}
+
+	@Override
+	public Optional<GBounds> getAbsoluteBounds(GModelElement element) {
+		Entry entry = elementToEntry.get(element);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		return Optional.of(GraphUtil.bounds(entry.minX, entry.minY, entry.maxX - entry.minX, entry.maxY - entry.minY));
+	}
+
+	protected List<GModelElement> query(double minX, double minY, double maxX, double maxY, boolean contained) {
+		List<GModelElement> result = new ArrayList<>();
+		int minCellX = cell(minX);
+		int minCellY = cell(minY);
+		int maxCellX = cell(maxX);
+		int maxCellY = cell(maxY);
+		long cellCount = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+		if (cellCount > cells.size()) {
+			// the query covers more cells than are occupied, so only visit the occupied ones
+			for (Map.Entry<Long, List<Entry>> cell : cells.entrySet()) {
+				int x = (int) (cell.getKey() >> 32);
+				int y = (int) cell.getKey().longValue();
+				if (x >= minCellX && x <= maxCellX && y >= minCellY && y <= maxCellY) {
+					collect(cell.getValue(), x, y, minX, minY, maxX, maxY, contained, result);
+				}
+			}
+		} else {
+			for (int x = minCellX; x <= maxCellX; x++) {
+				for (int y = minCellY; y <= maxCellY; y++) {
+					List<Entry> cellEntries = cells.get(key(x, y));
+					if (cellEntries != null) {
+						collect(cellEntries, x, y, minX, minY, maxX, maxY, contained, result);
+					}
+				}
+			}
+		}
+		for (Entry entry : largeEntries) {
+			if (matches(entry, minX, minY, maxX, maxY, contained)) {
+				result.add(entry.element);
+			}
+		}
+		return result;
+	}
+
+	private void collect(List<Entry> cellEntries, int cellX, int cellY, double minX, double minY, double maxX,
+			double maxY, boolean contained, List<GModelElement> result) {
+		int minCellX = cell(minX);
+		int minCellY = cell(minY);
+		for (Entry entry : cellEntries) {
+			// elements spanning several cells are only reported in the first cell of the query they overlap
+			if (cellX == Math.max(entry.minCellX, minCellX) && cellY == Math.max(entry.minCellY, minCellY)
+					&& matches(entry, minX, minY, maxX, maxY, contained)) {
+				result.add(entry.element);
+			}
+		}
+	}
+
+	private static boolean matches(Entry entry, double minX, double minY, double maxX, double maxY,
+			boolean contained) {
+		if (contained) {
+			return entry.minX >= minX && entry.minY >= minY && entry.maxX <= maxX && entry.maxY <= maxY;
+		}
+		return entry.minX <= maxX && entry.maxX >= minX && entry.minY <= maxY && entry.maxY >= minY;
+	}
+
+	protected void computeAbsoluteBounds(Entry entry) {
+		double x = 0;
+		double y = 0;
+		for (GModelElement current = entry.element; current != null && current != root; current = current
+				.getParent()) {
+			if (current instanceof GBoundsAware && ((GBoundsAware) current).getPosition() != null) {
+				x += ((GBoundsAware) current).getPosition().getX();
+				y += ((GBoundsAware) current).getPosition().getY();
+			}
+		}
+		GBoundsAware boundsAware = (GBoundsAware) entry.element;
+		double width = boundsAware.getSize() != null ? Math.max(boundsAware.getSize().getWidth(), 0) : 0;
+		double height = boundsAware.getSize() != null ? Math.max(boundsAware.getSize().getHeight(), 0) : 0;
+		entry.minX = x;
+		entry.minY = y;
+		entry.maxX = x + width;
+		entry.maxY = y + height;
+		entry.minCellX = cell(entry.minX);
+		entry.minCellY = cell(entry.minY);
+		entry.maxCellX = cell(entry.maxX);
+		entry.maxCellY = cell(entry.maxY);
+	}
+
+	private void register(Entry entry) {
+		if (entry.isLarge()) {
+			largeEntries.add(entry);
+			return;
+		}
+		for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+			for (int y = entry.minCellY; y <= entry.maxCellY; y++) {
+				cells.computeIfAbsent(key(x, y), k -> new ArrayList<>(4)).add(entry);
+			}
+		}
+	}
+
+	private void unregister(Entry entry) {
+		if (entry.isLarge()) {
+			largeEntries.remove(entry);
+			return;
+		}
+		for (int x = entry.minCellX; x <= entry.maxCellX; x++) {
+			for (int y = entry.minCellY; y <= entry.maxCellY; y++) {
+				Long key = key(x, y);
+				List<Entry> cellEntries = cells.get(key);
+				if (cellEntries != null && cellEntries.remove(entry) && cellEntries.isEmpty()) {
+					cells.remove(key);
+				}
+			}
+		}
+	}
+
+	private int cell(double coordinate) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	private static long key(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+
+	protected static final class Entry {
+		private final GModelElement element;
+		private double minX;
+		private double minY;
+		private double maxX;
+		private double maxY;
+		private int minCellX;
+		private int minCellY;
+		private int maxCellX;
+		private int maxCellY;
+
+		Entry(GModelElement element) {
+			this.element = element;
+		}
+
+		boolean isLarge() {
+			return ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1) > MAX_CELLS_PER_ELEMENT;
+		}
+	}
+
+}
@@ -1,42 +1,157 @@
 package com.eclipsesource.glsp.graph.impl;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.EStructuralFeature;
 
 import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelChangeSetListener;
+import com.eclipsesource.glsp.graph.GModelElement;
 import com.eclipsesource.glsp.graph.GModelListener;
+import com.eclipsesource.glsp.graph.GModelSubscription;
 
-public class GModelChangeNotifierImpl extends EContentAdapter implements GModelChangeNotifier {
+/**
+ * Dispatches the notifications received from the {@link GModelObserver} of a
+ * model to the registered {@link GModelListener listeners}. Listeners with a
+ * {@link GModelSubscription} are looked up in a dispatch table per changed
+ * type and feature, which is computed lazily and reset whenever the
+ * subscriptions change. For
+ * {@link GModelChangeSetListener change set listeners} the notifications are
+ * aggregated until the current transaction is committed.
+ */
+public class GModelChangeNotifierImpl implements GModelChangeNotifier {
 
 	private List<GModelListener> listeners = new CopyOnWriteArrayList<>();
-	
-	public GModelChangeNotifierImpl(EObject target) {
-		target.eAdapters().add(this);
-	}
+	private List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final Map<EClass, Map<EStructuralFeature, List<GModelListener>>> dispatchTable = new ConcurrentHashMap<>();
+	private List<GModelChangeSetListener> changeSetListeners = new CopyOnWriteArrayList<>();
+	private int transactionDepth;
+	private GModelChangeSetImpl changeSet;
 
-	@Override
 	public void notifyChanged(Notification notification) {
-		super.notifyChanged(notification);
 		listeners.forEach(listener -> listener.notifyChanged(notification));
+		if (!subscribers.isEmpty()) {
+			notifySubscribers(notification);
+		}
+		if (changeSetListeners.isEmpty()) {
+			return;
+		}
+		if (changeSet == null) {
+			changeSet = new GModelChangeSetImpl();
+		}
+		changeSet.add(notification);
+		if (transactionDepth == 0) {
+			deliverChangeSet();
+		}
+	}
+
+	protected void notifySubscribers(Notification notification) {
+		if (!(notification.getNotifier() instanceof EObject)
+				|| !(notification.getFeature() instanceof EStructuralFeature)) {
+			return;
+		}
+		// match changes of nested objects against the containing model element
+		EObject object = (EObject) notification.getNotifier();
+		EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
+		while (object != null && !(object instanceof GModelElement)) {
+			feature = object.eContainmentFeature();
+			object = object.eContainer();
+		}
+		if (object != null) {
+			getSubscribedListeners(object.eClass(), feature).forEach(listener -> listener.notifyChanged(notification));
+		}
+	}
+
+	protected List<GModelListener> getSubscribedListeners(EClass eClass, EStructuralFeature feature) {
+		return dispatchTable.computeIfAbsent(eClass, type -> new ConcurrentHashMap<>()).computeIfAbsent(feature,
+				changedFeature -> subscribers.stream()
+						.filter(subscriber -> subscriber.subscription.matches(eClass, changedFeature))
+						.map(subscriber -> subscriber.listener).distinct().collect(Collectors.toList()));
+	}
+
+	@Override
+	public void beginTransaction() {
+		transactionDepth++;
+	}
+
+	@Override
+	public void commitTransaction() {
+		if (transactionDepth == 0) {
+			throw new IllegalStateException("There is no transaction to commit");
+		}
+		transactionDepth--;
+		if (transactionDepth == 0) {
+			deliverChangeSet();
+		}
+	}
+
+	@Override
+	public boolean isInTransaction() {
+		return transactionDepth > 0;
+	}
+
+	protected void deliverChangeSet() {
+		GModelChangeSetImpl committedChangeSet = changeSet;
+		changeSet = null;
+		if (committedChangeSet != null && !committedChangeSet.isEmpty()) {
+			changeSetListeners.forEach(listener -> listener.changesCommitted(committedChangeSet));
+		}
 	}
 
 	@Override
 	public void addListener(GModelListener listener) {
+		if (listeners.contains(listener)) {
+			return;
+		}
 		listeners.add(listener);
+		// the listener is notified about all changes, so its subscriptions are obsolete
+		if (subscribers.removeIf(subscriber -> subscriber.listener == listener)) {
+			dispatchTable.clear();
+		}
+	}
+
+	@Override
+	public void addListener(GModelListener listener, GModelSubscription subscription) {
+		if (listeners.contains(listener)) {
+			return;
+		}
+		subscribers.add(new Subscriber(listener, subscription));
+		dispatchTable.clear();
 	}
 
 	@Override
 	public void removeListener(GModelListener listener) {
 		listeners.remove(listener);
+		if (subscribers.removeIf(subscriber -> subscriber.listener == listener)) {
+			dispatchTable.clear();
+		}
 	}
-	
+
 	@Override
-	public boolean isAdapterForType(Object type) {
-		return GModelChangeNotifierImpl.class.equals(type);
+	public void addChangeSetListener(GModelChangeSetListener listener) {
+		changeSetListeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeSetListener(GModelChangeSetListener listener) {
+		changeSetListeners.remove(listener);
+	}
+
+	private static final class Subscriber {
+		private final GModelListener listener;
+		private final GModelSubscription subscription;
+
+		Subscriber(GModelListener listener, GModelSubscription subscription) {
+			this.listener = listener;
+			this.subscription = subscription;
+		}
 	}
 
 }
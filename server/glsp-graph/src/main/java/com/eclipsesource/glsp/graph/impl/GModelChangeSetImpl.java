@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import com.eclipsesource.glsp.graph.GModelChangeSet;
+import com.eclipsesource.glsp.graph.GModelElement;
+
+/**
+ * {@link GModelChangeSet} that is built up incrementally from the
+ * notifications of a transaction.
+ */
+public class GModelChangeSetImpl implements GModelChangeSet {
+
+	private final Map<GModelElement, Set<EStructuralFeature>> touchedElements = new LinkedHashMap<>();
+	private final Set<EStructuralFeature> changedFeatures = new LinkedHashSet<>();
+	private final Set<GModelElement> addedElements = new LinkedHashSet<>();
+	// the removed elements and the parents they have been removed from first
+	private final Map<GModelElement, GModelElement> removedElements = new LinkedHashMap<>();
+	private final Map<GModelElement, Integer> removedPositions = new HashMap<>();
+	private final Set<GModelElement> reorderedElements = new LinkedHashSet<>();
+	private int notificationCount;
+
+	public void add(Notification notification) {
+		if (notification.isTouch() || !(notification.getNotifier() instanceof EObject)
+				|| !(notification.getFeature() instanceof EStructuralFeature)) {
+			return;
+		}
+		EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
+		if (feature instanceof EReference && ((EReference) feature).isContainer()) {
+			// already covered by the corresponding containment change
+			return;
+		}
+		notificationCount++;
+		EObject notifier = (EObject) notification.getNotifier();
+		addTouched(notifier, feature);
+		if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			addContainmentChange(notification);
+		}
+	}
+
+	protected void addTouched(EObject notifier, EStructuralFeature feature) {
+		// attribute changes of nested objects to the containing model element
+		EObject object = notifier;
+		EStructuralFeature elementFeature = feature;
+		while (object != null && !(object instanceof GModelElement)) {
+			elementFeature = object.eContainmentFeature();
+			object = object.eContainer();
+		}
+		if (object != null) {
+			touchedElements.computeIfAbsent((GModelElement) object, element -> new LinkedHashSet<>())
+					.add(elementFeature);
+			changedFeatures.add(elementFeature);
+		}
+	}
+
+	protected void addContainmentChange(Notification notification) {
+		EObject parent = (EObject) notification.getNotifier();
+		int position = notification.getPosition();
+		switch (notification.getEventType()) {
+		case Notification.SET:
+		case Notification.UNSET: {
+			removed(notification.getOldValue(), parent, Notification.NO_INDEX);
+			added(notification.getNewValue(), parent, Notification.NO_INDEX);
+			break;
+		}
+		case Notification.ADD: {
+			added(notification.getNewValue(), parent, position);
+			if (!isAppended(notification, 1)) {
+				reordered(parent);
+			}
+			break;
+		}
+		case Notification.ADD_MANY: {
+			Collection<?> newValues = (Collection<?>) notification.getNewValue();
+			int index = position;
+			for (Object newValue : newValues) {
+				added(newValue, parent, index++);
+			}
+			if (!isAppended(notification, newValues.size())) {
+				reordered(parent);
+			}
+			break;
+		}
+		case Notification.REMOVE: {
+			removed(notification.getOldValue(), parent, position);
+			break;
+		}
+		case Notification.REMOVE_MANY: {
+			// the positions are not known if the list has been cleared
+			int[] positions = notification.getNewValue() instanceof int[] ? (int[]) notification.getNewValue()
+					: null;
+			int index = 0;
+			for (Object oldValue : (Collection<?>) notification.getOldValue()) {
+				removed(oldValue, parent, positions != null ? positions[index++] : Notification.NO_INDEX);
+			}
+			break;
+		}
+		case Notification.MOVE: {
+			reordered(parent);
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Returns whether the given number of values have been added at the end of
+	 * the list, as the client appends the elements that are added by a patch.
+	 */
+	private static boolean isAppended(Notification notification, int count) {
+		Object list = ((EObject) notification.getNotifier()).eGet((EStructuralFeature) notification.getFeature());
+		return !(list instanceof Collection<?>) || notification.getPosition() == Notification.NO_INDEX
+				|| notification.getPosition() + count == ((Collection<?>) list).size();
+	}
+
+	private void added(Object value, EObject parent, int position) {
+		if (!(value instanceof GModelElement)) {
+			return;
+		}
+		if (removedElements.containsKey(value) && removedElements.get(value) == parent) {
+			// removed and added again to the same parent
+			removedElements.remove(value);
+			Integer removedPosition = removedPositions.remove(value);
+			if (position != Notification.NO_INDEX
+					&& (removedPosition == null || removedPosition.intValue() != position)) {
+				reordered(parent);
+			}
+		} else {
+			addedElements.add((GModelElement) value);
+		}
+	}
+
+	private void removed(Object value, EObject parent, int position) {
+		if (value instanceof GModelElement && !addedElements.remove(value)) {
+			if (removedElements.putIfAbsent((GModelElement) value,
+					parent instanceof GModelElement ? (GModelElement) parent : null) == null
+					&& position != Notification.NO_INDEX) {
+				removedPositions.put((GModelElement) value, position);
+			}
+		}
+	}
+
+	private void reordered(EObject parent) {
+		if (parent instanceof GModelElement) {
+			reorderedElements.add((GModelElement) parent);
+		}
+	}
+
+	@Override
+	public Set<GModelElement> getTouchedElements() {
+		return Collections.unmodifiableSet(touchedElements.keySet());
+	}
+
+	@Override
+	public Set<EStructuralFeature> getChangedFeatures(GModelElement element) {
+		Set<EStructuralFeature> features = touchedElements.get(element);
+		return features != null ? Collections.unmodifiableSet(features) : Collections.emptySet();
+	}
+
+	@Override
+	public Set<EStructuralFeature> getChangedFeatures() {
+		return Collections.unmodifiableSet(changedFeatures);
+	}
+
+	@Override
+	public Set<GModelElement> getAddedElements() {
+		return Collections.unmodifiableSet(addedElements);
+	}
+
+	@Override
+	public Set<GModelElement> getRemovedElements() {
+		return Collections.unmodifiableSet(removedElements.keySet());
+	}
+
+	@Override
+	public GModelElement getFormerParent(GModelElement removedElement) {
+		return removedElements.get(removedElement);
+	}
+
+	@Override
+	public Set<GModelElement> getReorderedElements() {
+		return Collections.unmodifiableSet(reorderedElements);
+	}
+
+	@Override
+	public int getNotificationCount() {
+		return notificationCount;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return notificationCount == 0;
+	}
+
+}
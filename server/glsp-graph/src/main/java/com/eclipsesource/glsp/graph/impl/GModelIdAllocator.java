@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.impl;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the used counters of ids that consist of a prefix and a
+ * numeric suffix, e.g. <code>task42</code>. The counters of a prefix are
+ * collected once when the prefix is first requested and are kept up to date
+ * by the {@link GModelIndexImpl} afterwards. As the allocator is derived from
+ * the ids contained in the model, it stays consistent when elements are
+ * removed and re-added, e.g., on undo and redo.
+ */
+public class GModelIdAllocator {
+
+	private static final int MAX_COUNTER_DIGITS = 9;
+	private static final int MAX_DENSE_COUNTER = 1 << 20;
+
+	private final Map<String, UsedCounters> prefixToUsedCounters = new HashMap<>();
+
+	/**
+	 * Returns the smallest counter that is equal to or greater than the given
+	 * start counter and is not used by any id with the given prefix.
+	 * 
+	 * @param prefix      the id prefix
+	 * @param start       the smallest counter that may be returned
+	 * @param existingIds all ids that are currently in use, only consulted the
+	 *                    first time a prefix is requested
+	 * @return the next free counter
+	 */
+	public int nextFreeCounter(String prefix, int start, Iterable<String> existingIds) {
+		UsedCounters usedCounters = prefixToUsedCounters.get(prefix);
+		if (usedCounters == null) {
+			usedCounters = new UsedCounters();
+			for (String id : existingIds) {
+				int counter = parseCounter(prefix, id);
+				if (counter >= 0) {
+					usedCounters.set(counter, true);
+				}
+			}
+			prefixToUsedCounters.put(prefix, usedCounters);
+		}
+		return usedCounters.nextFree(Math.max(start, 0));
+	}
+
+	public void idAdded(String id) {
+		updateCounters(id, true);
+	}
+
+	public void idRemoved(String id) {
+		updateCounters(id, false);
+	}
+
+	protected void updateCounters(String id, boolean used) {
+		if (id == null || prefixToUsedCounters.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<String, UsedCounters> entry : prefixToUsedCounters.entrySet()) {
+			int counter = parseCounter(entry.getKey(), id);
+			if (counter >= 0) {
+				entry.getValue().set(counter, used);
+			}
+		}
+	}
+
+	/**
+	 * Returns the numeric suffix of the given id if it consists of the given
+	 * prefix and a counter as produced by <code>prefix + counter</code>, or -1
+	 * otherwise.
+	 */
+	protected static int parseCounter(String prefix, String id) {
+		if (id == null || !id.startsWith(prefix)) {
+			return -1;
+		}
+		int digits = id.length() - prefix.length();
+		if (digits < 1 || digits > MAX_COUNTER_DIGITS || (digits > 1 && id.charAt(prefix.length()) == '0')) {
+			return -1;
+		}
+		int counter = 0;
+		for (int i = prefix.length(); i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			counter = counter * 10 + (c - '0');
+		}
+		return counter;
+	}
+
+	/**
+	 * Counters up to {@link GModelIdAllocator#MAX_DENSE_COUNTER} are kept in a
+	 * bit set, larger ones in a hash set so that a single id with a huge counter
+	 * does not blow up the bit set.
+	 */
+	private static final class UsedCounters {
+		private final BitSet dense = new BitSet();
+		private final Set<Integer> sparse = new HashSet<>();
+
+		void set(int counter, boolean used) {
+			if (counter < MAX_DENSE_COUNTER) {
+				dense.set(counter, used);
+			} else if (used) {
+				sparse.add(counter);
+			} else {
+				sparse.remove(counter);
+			}
+		}
+
+		int nextFree(int start) {
+			if (start < MAX_DENSE_COUNTER) {
+				int counter = dense.nextClearBit(start);
+				if (counter < MAX_DENSE_COUNTER) {
+					return counter;
+				}
+				start = MAX_DENSE_COUNTER;
+			}
+			int counter = start;
+			while (sparse.contains(counter)) {
+				counter++;
+			}
+			return counter;
+		}
+	}
+
+}
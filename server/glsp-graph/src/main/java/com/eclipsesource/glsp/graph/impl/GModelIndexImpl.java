@@ -15,67 +15,90 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.graph.impl;
 
-import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GEDGE__SOURCE;
-import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GEDGE__TARGET;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GBOUNDS_AWARE__POSITION;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GBOUNDS_AWARE__SIZE;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GEDGE__SOURCE_ID;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GEDGE__TARGET_ID;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GMODEL_ELEMENT__CHILDREN;
+import static com.eclipsesource.glsp.graph.GraphPackage.Literals.GMODEL_ELEMENT__ID;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.emf.common.notify.Notification;
-import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EReference;
-import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
+import com.eclipsesource.glsp.graph.GDimension;
 import com.eclipsesource.glsp.graph.GEdge;
 import com.eclipsesource.glsp.graph.GModelElement;
 import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.GSpatialIndex;
 import com.google.common.base.Preconditions;
 
-public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelIndex {
+/**
+ * Default {@link GModelIndex} implementation. The index is kept up to date by
+ * the {@link GModelObserver} of the model, which creates it and forwards all
+ * containment changes and notifications to it.
+ */
+public class GModelIndexImpl implements GModelIndex {
 
 	private final Map<String, GModelElement> idToElement = new HashMap<>();
 	private final Map<EClass, Set<GModelElement>> typeToElements = new HashMap<>();
+	private final Map<String, Integer> idToHandle = new HashMap<>();
+	private final List<String> handleToId = new ArrayList<>();
+	private final BitSet indexedHandles = new BitSet();
+	private final BitSet freeHandles = new BitSet();
+	private int[] retainCounts = new int[0];
+	private final List<GModelElement> treeOrder = new ArrayList<>();
+	private int[] treeOrderByHandle = new int[0];
+	private int[] subtreeEnds = new int[0];
+	private boolean treeOrderValid;
+	private final Map<String, EdgeSet> sourceIdToEdges = new HashMap<>();
+	private final Map<String, EdgeSet> targetIdToEdges = new HashMap<>();
+	private final GModelIdAllocator idAllocator = new GModelIdAllocator();
+	private final Map<EAttribute, GAttributeIndex> attributeIndexes = new HashMap<>();
+	private GGridSpatialIndex spatialIndex;
 	private GModelElement root;
 
 	public GModelIndexImpl(EObject target) {
 		Preconditions.checkArgument(target instanceof GModelElement);
 		this.root = (GModelElement) target;
-		target.eAdapters().add(this);
-		addIfGModelElement(target);
-	}
-
-	@Override
-	protected void addAdapter(Notifier notifier) {
-		super.addAdapter(notifier);
-		addIfGModelElement(notifier);
-	}
-
-	protected void addIfGModelElement(Notifier notifier) {
-		if (notifier instanceof GModelElement) {
-			notifyAdd((GModelElement) notifier);
-		}
-	}
-
-	@Override
-	protected void removeAdapter(Notifier notifier) {
-		super.removeAdapter(notifier);
-		if (notifier instanceof GModelElement) {
-			notifyRemove((GModelElement) notifier);
-		}
+		notifyAdd(root);
 	}
 
 	protected void notifyAdd(GModelElement element) {
+		treeOrderValid = false;
 		if (idToElement.put(element.getId(), element) == null) {
 			getTypeSet(element.eClass()).add(element);
+			idAllocator.idAdded(element.getId());
+			setIndexedHandle(element.getId(), true);
+			if (spatialIndex != null) {
+				spatialIndex.add(element);
+			}
+			for (GAttributeIndex attributeIndex : attributeIndexes.values()) {
+				attributeIndex.add(element);
+			}
+			if (element instanceof GEdge) {
+				addEdge((GEdge) element);
+			}
+			invalidateResolvedReferences(element);
 			for (GModelElement child : element.getChildren()) {
 				notifyAdd(child);
 			}
@@ -83,34 +106,157 @@ public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelInd
 	}
 
 	protected void notifyRemove(GModelElement element) {
+		treeOrderValid = false;
 		if (idToElement.remove(element.getId()) != null) {
 			getTypeSet(element.eClass()).remove(element);
+			idAllocator.idRemoved(element.getId());
+			setIndexedHandle(element.getId(), false);
+			if (spatialIndex != null) {
+				spatialIndex.remove(element);
+			}
+			for (GAttributeIndex attributeIndex : attributeIndexes.values()) {
+				attributeIndex.remove(element);
+			}
+			if (element instanceof GEdge) {
+				removeEdge((GEdge) element);
+			}
+			invalidateResolvedReferences(element);
 			for (GModelElement child : element.getChildren()) {
 				notifyRemove(child);
 			}
 		}
 	}
 
-	@Override
-	public boolean isAdapterForType(Object type) {
-		return GModelIndexImpl.class.equals(type);
+	protected void addEdge(GEdge edge) {
+		addToEdgeSet(sourceIdToEdges, edge.getSourceId(), edge);
+		addToEdgeSet(targetIdToEdges, edge.getTargetId(), edge);
 	}
 
-	@Override
-	protected void handleContainment(Notification notification) {
-		super.handleContainment(notification);
-		switch (notification.getEventType()) {
-		case Notification.REMOVE: {
-			Notifier oldValue = (Notifier) notification.getOldValue();
-			removeAdapter(oldValue);
-			break;
+	protected void removeEdge(GEdge edge) {
+		removeFromEdgeSet(sourceIdToEdges, edge.getSourceId(), edge);
+		removeFromEdgeSet(targetIdToEdges, edge.getTargetId(), edge);
+	}
+
+	private static void addToEdgeSet(Map<String, EdgeSet> edgeSets, String elementId, GEdge edge) {
+		if (elementId != null) {
+			edgeSets.computeIfAbsent(elementId, id -> new EdgeSet()).edges.add(edge);
+		}
+	}
+
+	private static void removeFromEdgeSet(Map<String, EdgeSet> edgeSets, String elementId, GEdge edge) {
+		if (elementId == null) {
+			return;
+		}
+		EdgeSet edgeSet = edgeSets.get(elementId);
+		if (edgeSet != null && edgeSet.edges.remove(edge) && edgeSet.edges.isEmpty()) {
+			edgeSets.remove(elementId);
+		}
+	}
+
+	/**
+	 * Invalidates the cached source and target of the given edge and of all edges
+	 * connected to the given element.
+	 */
+	protected void invalidateResolvedReferences(GModelElement element) {
+		if (element instanceof GEdgeImpl) {
+			((GEdgeImpl) element).invalidateResolvedReferences();
+		}
+		invalidateResolvedReferences(element.getId());
+	}
+
+	protected void invalidateResolvedReferences(String elementId) {
+		if (elementId == null) {
+			return;
+		}
+		invalidateResolvedReferences(sourceIdToEdges.get(elementId));
+		invalidateResolvedReferences(targetIdToEdges.get(elementId));
+	}
+
+	private static void invalidateResolvedReferences(EdgeSet edgeSet) {
+		if (edgeSet == null) {
+			return;
+		}
+		for (GEdge edge : edgeSet.edges) {
+			if (edge instanceof GEdgeImpl) {
+				((GEdgeImpl) edge).invalidateResolvedReferences();
+			}
+		}
+	}
+
+	public void notifyChanged(Notification notification) {
+		if (notification.getEventType() == Notification.MOVE
+				&& GMODEL_ELEMENT__CHILDREN.equals(notification.getFeature())) {
+			treeOrderValid = false;
+		}
+		if (notification.getEventType() != Notification.SET) {
+			return;
 		}
-		case Notification.REMOVE_MANY: {
-			for (Object oldValue : (Collection<?>) notification.getOldValue()) {
-				removeAdapter((Notifier) oldValue);
+		Object feature = notification.getFeature();
+		Object notifier = notification.getNotifier();
+		if (notifier instanceof GModelElement) {
+			if (GMODEL_ELEMENT__ID.equals(feature)) {
+				handleIdChange((GModelElement) notifier, notification.getOldStringValue(),
+						notification.getNewStringValue());
+			} else if (GEDGE__SOURCE_ID.equals(feature) || GEDGE__TARGET_ID.equals(feature)) {
+				handleEdgeChange((GEdge) notifier, feature, notification.getOldStringValue(),
+						notification.getNewStringValue());
+			} else if (GBOUNDS_AWARE__POSITION.equals(feature) || GBOUNDS_AWARE__SIZE.equals(feature)) {
+				handleBoundsChange((GModelElement) notifier, feature);
+			}
+			GAttributeIndex attributeIndex = attributeIndexes.get(feature);
+			if (attributeIndex != null) {
+				handleAttributeChange(attributeIndex, (GModelElement) notifier, notification.getOldValue(),
+						notification.getNewValue());
 			}
-			break;
+		} else if (notifier instanceof GPoint || notifier instanceof GDimension) {
+			EObject container = ((EObject) notifier).eContainer();
+			if (container instanceof GModelElement) {
+				handleBoundsChange((GModelElement) container, ((EObject) notifier).eContainmentFeature());
+			}
+		}
+	}
+
+	protected void handleIdChange(GModelElement element, String oldId, String newId) {
+		if (idToElement.get(oldId) != element) {
+			// elements that are not (yet) part of the indexed model are added on containment
+			return;
+		}
+		treeOrderValid = false;
+		idToElement.remove(oldId);
+		idAllocator.idRemoved(oldId);
+		setIndexedHandle(oldId, false);
+		invalidateResolvedReferences(oldId);
+		idToElement.put(newId, element);
+		idAllocator.idAdded(newId);
+		setIndexedHandle(newId, true);
+		invalidateResolvedReferences(newId);
+	}
+
+	protected void handleEdgeChange(GEdge edge, Object feature, String oldId, String newId) {
+		if (idToElement.get(edge.getId()) != edge) {
+			// edges that are not (yet) part of the indexed model are added on containment
+			return;
+		}
+		Map<String, EdgeSet> edgeSets = GEDGE__SOURCE_ID.equals(feature) ? sourceIdToEdges : targetIdToEdges;
+		removeFromEdgeSet(edgeSets, oldId, edge);
+		addToEdgeSet(edgeSets, newId, edge);
+	}
+
+	protected void handleAttributeChange(GAttributeIndex attributeIndex, GModelElement element, Object oldValue,
+			Object newValue) {
+		if (idToElement.get(element.getId()) == element) {
+			attributeIndex.update(element, oldValue, newValue);
+		}
+	}
+
+	protected void handleBoundsChange(GModelElement element, Object feature) {
+		if (spatialIndex == null || element == root || idToElement.get(element.getId()) != element) {
+			return;
 		}
+		if (GBOUNDS_AWARE__POSITION.equals(feature)) {
+			spatialIndex.updateSubtree(element);
+		} else if (GBOUNDS_AWARE__SIZE.equals(feature)) {
+			spatialIndex.update(element);
 		}
 	}
 
@@ -126,18 +272,32 @@ public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelInd
 
 	@Override
 	public Collection<GEdge> getIncomingEdges(GModelElement node) {
-		return getEdgesWithIncomingReference(node, GEDGE__TARGET);
+		return getEdges(targetIdToEdges, node);
 	}
 
 	@Override
 	public Collection<GEdge> getOutgoingEdges(GModelElement node) {
-		return getEdgesWithIncomingReference(node, GEDGE__SOURCE);
+		return getEdges(sourceIdToEdges, node);
+	}
+
+	@Override
+	public int getIncomingEdgeCount(GModelElement node) {
+		return getEdgeCount(targetIdToEdges, node);
+	}
+
+	@Override
+	public int getOutgoingEdgeCount(GModelElement node) {
+		return getEdgeCount(sourceIdToEdges, node);
+	}
+
+	protected Collection<GEdge> getEdges(Map<String, EdgeSet> edgeSets, GModelElement node) {
+		EdgeSet edgeSet = edgeSets.get(node.getId());
+		return edgeSet != null ? edgeSet.view : Collections.emptySet();
 	}
 
-	protected List<GEdge> getEdgesWithIncomingReference(GModelElement node, EReference feature) {
-		return this.getNonNavigableInverseReferences(node).stream()
-				.filter(s -> feature.equals(s.getEStructuralFeature())).filter(s -> s.getEObject() instanceof GEdge)
-				.map(s -> (GEdge) s.getEObject()).collect(Collectors.toList());
+	protected int getEdgeCount(Map<String, EdgeSet> edgeSets, GModelElement node) {
+		EdgeSet edgeSet = edgeSets.get(node.getId());
+		return edgeSet != null ? edgeSet.edges.size() : 0;
 	}
 
 	@Override
@@ -145,6 +305,150 @@ public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelInd
 		return idToElement.keySet();
 	}
 
+	@Override
+	public boolean isAncestorOf(GModelElement ancestor, GModelElement descendant) {
+		ensureTreeOrder();
+		int ancestorPosition = getTreeOrderPosition(ancestor);
+		int descendantPosition = getTreeOrderPosition(descendant);
+		if (ancestorPosition < 0 || descendantPosition < 0) {
+			return EcoreUtil.isAncestor(ancestor, descendant);
+		}
+		return ancestorPosition <= descendantPosition && descendantPosition < subtreeEnds[ancestorPosition];
+	}
+
+	@Override
+	public List<GModelElement> getSubtree(GModelElement element) {
+		ensureTreeOrder();
+		int position = getTreeOrderPosition(element);
+		if (position < 0) {
+			List<GModelElement> subtree = new ArrayList<>();
+			collectSubtree(element, subtree);
+			return Collections.unmodifiableList(subtree);
+		}
+		return Collections.unmodifiableList(treeOrder.subList(position, subtreeEnds[position]));
+	}
+
+	/**
+	 * Recomputes the pre-order numbering of the model if it has been invalidated
+	 * by a containment change since it was last computed. The position of an
+	 * element in the tree order is its enter number and the end of its subtree is
+	 * its exit number, so ancestor checks and subtree lookups are constant time.
+	 */
+	protected void ensureTreeOrder() {
+		if (treeOrderValid) {
+			return;
+		}
+		treeOrder.clear();
+		if (treeOrderByHandle.length < handleToId.size()) {
+			treeOrderByHandle = new int[Math.max(handleToId.size(), treeOrderByHandle.length * 2)];
+		}
+		if (subtreeEnds.length < idToElement.size()) {
+			subtreeEnds = new int[Math.max(idToElement.size(), subtreeEnds.length * 2)];
+		}
+		collectSubtree(root, treeOrder);
+		treeOrderValid = true;
+	}
+
+	private void collectSubtree(GModelElement element, List<GModelElement> subtree) {
+		int position = subtree.size();
+		subtree.add(element);
+		for (GModelElement child : element.getChildren()) {
+			collectSubtree(child, subtree);
+		}
+		if (subtree == treeOrder) {
+			int handle = findHandle(element.getId());
+			if (handle >= 0 && handle < treeOrderByHandle.length) {
+				treeOrderByHandle[handle] = position;
+			}
+			if (position >= subtreeEnds.length) {
+				subtreeEnds = Arrays.copyOf(subtreeEnds, Math.max(position + 1, subtreeEnds.length * 2));
+			}
+			subtreeEnds[position] = subtree.size();
+		}
+	}
+
+	private int getTreeOrderPosition(GModelElement element) {
+		int handle = findHandle(element.getId());
+		if (handle < 0 || handle >= treeOrderByHandle.length) {
+			return -1;
+		}
+		int position = treeOrderByHandle[handle];
+		return position < treeOrder.size() && treeOrder.get(position) == element ? position : -1;
+	}
+
+	@Override
+	public int getHandle(String elementId) {
+		Integer handle = idToHandle.get(elementId);
+		if (handle == null) {
+			handle = freeHandles.nextSetBit(0);
+			if (handle >= 0) {
+				freeHandles.clear(handle);
+				handleToId.set(handle, elementId);
+			} else {
+				handle = handleToId.size();
+				handleToId.add(elementId);
+			}
+			idToHandle.put(elementId, handle);
+		}
+		return handle;
+	}
+
+	@Override
+	public void retainHandle(int handle) {
+		if (handle >= retainCounts.length) {
+			retainCounts = Arrays.copyOf(retainCounts, Math.max(handle + 1, retainCounts.length * 2));
+		}
+		retainCounts[handle]++;
+	}
+
+	@Override
+	public void releaseHandle(int handle) {
+		if (handle < retainCounts.length && retainCounts[handle] > 0) {
+			retainCounts[handle]--;
+			releaseIfUnused(handle);
+		}
+	}
+
+	private void releaseIfUnused(int handle) {
+		if (indexedHandles.get(handle) || handle < retainCounts.length && retainCounts[handle] > 0) {
+			return;
+		}
+		idToHandle.remove(handleToId.get(handle));
+		handleToId.set(handle, null);
+		freeHandles.set(handle);
+	}
+
+	@Override
+	public int findHandle(String elementId) {
+		Integer handle = idToHandle.get(elementId);
+		return handle != null ? handle : -1;
+	}
+
+	@Override
+	public String getElementId(int handle) {
+		return handleToId.get(handle);
+	}
+
+	@Override
+	public void collectIndexedHandles(BitSet handles) {
+		handles.or(indexedHandles);
+	}
+
+	private void setIndexedHandle(String elementId, boolean indexed) {
+		if (elementId == null) {
+			return;
+		}
+		if (indexed) {
+			indexedHandles.set(getHandle(elementId));
+		} else {
+			int handle = findHandle(elementId);
+			if (handle >= 0) {
+				indexedHandles.clear(handle);
+				releaseIfUnused(handle);
+			}
+		}
+	}
+
 	@Override
 	public int getCounter(EClass eClass, Function<Integer, String> idProvider) {
 		int i = getTypeCount(eClass);
@@ -158,6 +462,65 @@ public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelInd
 		return i;
 	}
 
+	@Override
+	public <T extends GModelElement> Stream<T> streamAllByClass(Class<T> clazz) {
+		return typeToElements.entrySet().stream()
+				.filter(entry -> entry.getKey().getInstanceClass() != null
+						&& clazz.isAssignableFrom(entry.getKey().getInstanceClass()))
+				.flatMap(entry -> entry.getValue().stream()).map(clazz::cast);
+	}
+
+	@Override
+	public Collection<GModelElement> getAllByEClass(EClass eClass, boolean includeSubtypes) {
+		if (!includeSubtypes) {
+			Set<GModelElement> typeSet = typeToElements.get(eClass);
+			return typeSet != null ? Collections.unmodifiableList(new ArrayList<>(typeSet)) : Collections.emptyList();
+		}
+		List<GModelElement> result = new ArrayList<>();
+		typeToElements.forEach((type, elements) -> {
+			if (eClass.isSuperTypeOf(type)) {
+				result.addAll(elements);
+			}
+		});
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public void addAttributeIndex(EAttribute attribute) {
+		getAttributeIndex(attribute);
+	}
+
+	@Override
+	public Collection<GModelElement> getByAttribute(EAttribute attribute, Object value) {
+		return getAttributeIndex(attribute).get(value);
+	}
+
+	protected GAttributeIndex getAttributeIndex(EAttribute attribute) {
+		GAttributeIndex attributeIndex = attributeIndexes.get(attribute);
+		if (attributeIndex == null) {
+			attributeIndex = new GAttributeIndex(attribute);
+			for (GModelElement element : idToElement.values()) {
+				attributeIndex.add(element);
+			}
+			attributeIndexes.put(attribute, attributeIndex);
+		}
+		return attributeIndex;
+	}
+
+	@Override
+	public GSpatialIndex getSpatialIndex() {
+		if (spatialIndex == null) {
+			spatialIndex = new GGridSpatialIndex(root);
+			spatialIndex.addAll(idToElement.values());
+		}
+		return spatialIndex;
+	}
+
+	@Override
+	public int getCounter(EClass eClass, String idPrefix) {
+		return idAllocator.nextFreeCounter(idPrefix, getTypeCount(eClass), idToElement.keySet());
+	}
+
 	private Set<GModelElement> getTypeSet(EClass eClass) {
 		return typeToElements.computeIfAbsent(eClass, t -> new HashSet<>());
 	}
@@ -172,4 +535,9 @@ public class GModelIndexImpl extends ECrossReferenceAdapter implements GModelInd
 		return root;
 	}
 
+	private static final class EdgeSet {
+		private final Set<GEdge> edges = new LinkedHashSet<>();
+		private final Set<GEdge> view = Collections.unmodifiableSet(edges);
+	}
+
 }
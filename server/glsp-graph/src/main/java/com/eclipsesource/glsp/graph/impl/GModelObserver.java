@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.eclipsesource.glsp.graph.GModelElement;
+
+/**
+ * Observes the containment tree of a GModel on behalf of its
+ * {@link GModelIndexImpl index} and its {@link GModelChangeNotifierImpl change
+ * notifier}. Instead of one EContentAdapter and one ECrossReferenceAdapter per
+ * model, only this observer is installed on every object of the tree and every
+ * notification is dispatched once to the index and then to the change
+ * notifier. No inverse cross references are maintained, as the only
+ * non-containment references of the GModel (the source and target of an edge)
+ * are resolved through the id based lookups of the index.
+ */
+public class GModelObserver extends AdapterImpl {
+
+	private final EObject root;
+	private GModelIndexImpl index;
+	private GModelChangeNotifierImpl changeNotifier;
+
+	protected GModelObserver(EObject root) {
+		this.root = root;
+		attach(root);
+	}
+
+	/**
+	 * Returns the observer of the model with the given root, or
+	 * <code>null</code> if the model is not observed.
+	 */
+	public static GModelObserver find(Notifier root) {
+		return (GModelObserver) EcoreUtil.getExistingAdapter(root, GModelObserver.class);
+	}
+
+	/**
+	 * Returns the observer of the model with the given root and installs a new
+	 * observer if the model is not observed yet.
+	 */
+	public static GModelObserver get(EObject root) {
+		GModelObserver observer = find(root);
+		return observer != null ? observer : new GModelObserver(root);
+	}
+
+	public GModelIndexImpl getIndex() {
+		if (index == null) {
+			index = new GModelIndexImpl(root);
+		}
+		return index;
+	}
+
+	public void removeIndex() {
+		index = null;
+		disposeIfUnused();
+	}
+
+	public GModelChangeNotifierImpl getChangeNotifier() {
+		if (changeNotifier == null) {
+			changeNotifier = new GModelChangeNotifierImpl();
+		}
+		return changeNotifier;
+	}
+
+	public void removeChangeNotifier() {
+		changeNotifier = null;
+		disposeIfUnused();
+	}
+
+	protected void disposeIfUnused() {
+		if (index == null && changeNotifier == null) {
+			detach(root);
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		if (notification.getEventType() == Notification.REMOVING_ADAPTER) {
+			return;
+		}
+		Object feature = notification.getFeature();
+		if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			handleContainment(notification);
+		}
+		if (index != null) {
+			index.notifyChanged(notification);
+		}
+		if (changeNotifier != null) {
+			changeNotifier.notifyChanged(notification);
+		}
+	}
+
+	protected void handleContainment(Notification notification) {
+		switch (notification.getEventType()) {
+		case Notification.SET:
+		case Notification.UNSET: {
+			removed(notification.getOldValue());
+			added(notification.getNewValue());
+			break;
+		}
+		case Notification.ADD: {
+			added(notification.getNewValue());
+			break;
+		}
+		case Notification.ADD_MANY: {
+			for (Object newValue : (Collection<?>) notification.getNewValue()) {
+				added(newValue);
+			}
+			break;
+		}
+		case Notification.REMOVE: {
+			removed(notification.getOldValue());
+			break;
+		}
+		case Notification.REMOVE_MANY: {
+			for (Object oldValue : (Collection<?>) notification.getOldValue()) {
+				removed(oldValue);
+			}
+			break;
+		}
+		}
+	}
+
+	protected void added(Object value) {
+		if (value instanceof EObject) {
+			attach((EObject) value);
+			if (index != null && value instanceof GModelElement) {
+				index.notifyAdd((GModelElement) value);
+			}
+		}
+	}
+
+	protected void removed(Object value) {
+		if (value instanceof EObject) {
+			detach((EObject) value);
+			if (index != null && value instanceof GModelElement) {
+				index.notifyRemove((GModelElement) value);
+			}
+		}
+	}
+
+	protected void attach(EObject object) {
+		addTo(object);
+		for (Iterator<EObject> contents = object.eAllContents(); contents.hasNext();) {
+			addTo(contents.next());
+		}
+	}
+
+	protected void detach(EObject object) {
+		object.eAdapters().remove(this);
+		for (Iterator<EObject> contents = object.eAllContents(); contents.hasNext();) {
+			contents.next().eAdapters().remove(this);
+		}
+	}
+
+	private void addTo(EObject object) {
+		if (!object.eAdapters().contains(this)) {
+			object.eAdapters().add(this);
+		}
+	}
+
+	/**
+	 * The observer is shared by all objects of the tree, so there is no single
+	 * target to remember.
+	 */
+	@Override
+	public void setTarget(Notifier newTarget) {
+		// nothing to remember
+	}
+
+	@Override
+	public Notifier getTarget() {
+		return root;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return GModelObserver.class.equals(type);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.eclipsesource.glsp.graph.GEdge;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GLabel;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.gson.GGraphGsonConfigurator;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Measures the serialization of a graph with the GModel gson configuration.
+ * Each node has a label and is connected to its predecessor by an edge, so the
+ * graph consists of the given number of elements of four different classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GModelSerializationBenchmark {
+
+	@Param({ "50000" })
+	private int elementCount;
+
+	private GGraph graph;
+	private Gson gson;
+
+	@Setup
+	public void setUp() {
+		graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graph");
+		int nodeCount = elementCount / 3;
+		for (int i = 0; i < nodeCount; i++) {
+			GNode node = GraphFactory.eINSTANCE.createGNode();
+			node.setId("node" + i);
+			node.setPosition(GraphUtil.point(i * 10, i * 10));
+			node.setSize(GraphUtil.dimension(40, 20));
+			node.getCssClasses().add("task");
+			GLabel label = GraphFactory.eINSTANCE.createGLabel();
+			label.setId("label" + i);
+			label.setText("Node " + i);
+			node.getChildren().add(label);
+			graph.getChildren().add(node);
+			if (i > 0) {
+				GEdge edge = GraphFactory.eINSTANCE.createGEdge();
+				edge.setId("edge" + i);
+				edge.setSourceId("node" + (i - 1));
+				edge.setTargetId(node.getId());
+				graph.getChildren().add(edge);
+			}
+		}
+		gson = new GGraphGsonConfigurator().withDefaultTypes().configureGsonBuilder(new GsonBuilder()).create();
+	}
+
+	@Benchmark
+	public void serialize() {
+		gson.toJson(graph, GGraph.class, new JsonWriter(new NullWriter()));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(GModelSerializationBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	/**
+	 * Discards the written JSON, so only the serialization is measured.
+	 */
+	private static class NullWriter extends Writer {
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+			// discard
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// nothing to flush
+		}
+
+		@Override
+		public void close() throws IOException {
+			// nothing to close
+		}
+	}
+
+}
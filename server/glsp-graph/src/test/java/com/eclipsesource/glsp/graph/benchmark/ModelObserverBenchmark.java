@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GModelListener;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.impl.GModelIndexImpl;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+
+/**
+ * Compares the {@link com.eclipsesource.glsp.graph.impl.GModelObserver
+ * GModelObserver} with the former pair of an {@link EContentAdapter} and an
+ * {@link ECrossReferenceAdapter} per model, both for the throughput of
+ * attribute changes and for attaching to a model. Both variants maintain a
+ * {@link GModelIndex} and notify a listener of every change. Running the
+ * {@link #main} method additionally logs the retained memory per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelObserverBenchmark {
+
+	private static Logger LOG = Logger.getLogger(ModelObserverBenchmark.class);
+
+	public static final String OBSERVER = "observer";
+	public static final String ADAPTER_PAIR = "adapterPair";
+
+	@Param({ "10000" })
+	private int nodeCount;
+
+	@Param({ OBSERVER, ADAPTER_PAIR })
+	private String observation;
+
+	private GGraph graph;
+	private GNode[] nodes;
+	private double offset;
+
+	@Setup
+	public void setUp() {
+		graph = createGraph(nodeCount);
+		nodes = graph.getChildren().toArray(new GNode[nodeCount]);
+		observe(graph, observation);
+	}
+
+	@Benchmark
+	public double moveAllNodes() {
+		offset++;
+		for (GNode node : nodes) {
+			node.getPosition().setX(offset);
+		}
+		return offset;
+	}
+
+	@Benchmark
+	public GGraph attachToModel() {
+		GGraph model = createGraph(nodeCount);
+		observe(model, observation);
+		return model;
+	}
+
+	static GGraph createGraph(int nodeCount) {
+		GGraph graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graph");
+		for (int i = 0; i < nodeCount; i++) {
+			GNode node = GraphFactory.eINSTANCE.createGNode();
+			node.setId("node" + i);
+			node.setPosition(GraphUtil.point(i, i));
+			node.setSize(GraphUtil.dimension(40, 40));
+			graph.getChildren().add(node);
+		}
+		return graph;
+	}
+
+	static void observe(GGraph graph, String observation) {
+		// both variants maintain the same index data structures, so only the
+		// observation of the model is compared
+		if (OBSERVER.equals(observation)) {
+			GModelIndex.get(graph);
+			GModelChangeNotifier.get(graph).addListener(notification -> {
+			});
+		} else {
+			graph.eAdapters().add(new ECrossReferenceAdapter());
+			graph.eAdapters().add(new ContentAdapterIndex(graph).adapter);
+		}
+	}
+
+	static long measureMemoryPerElement(String observation, int nodeCount) {
+		// every node consists of the node itself, its position and its size
+		int elementCount = nodeCount * 3 + 1;
+		GGraph graph = createGraph(nodeCount);
+		long before = usedMemory();
+		observe(graph, observation);
+		long after = usedMemory();
+		if (graph.getChildren().isEmpty()) {
+			throw new IllegalStateException();
+		}
+		return (after - before) / elementCount;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (String observation : new String[] { OBSERVER, ADAPTER_PAIR }) {
+			LOG.info(observation + ": ~" + measureMemoryPerElement(observation, 100000) + " bytes per element");
+		}
+		new Runner(new OptionsBuilder().include(ModelObserverBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	/**
+	 * Index that is kept up to date by an {@link EContentAdapter}, like the index
+	 * before the {@link com.eclipsesource.glsp.graph.impl.GModelObserver
+	 * GModelObserver} was introduced. The adapter also notifies a listener of
+	 * every change.
+	 */
+	static class ContentAdapterIndex extends GModelIndexImpl {
+		final GModelListener listener = notification -> {
+		};
+		final EContentAdapter adapter = new EContentAdapter() {
+			@Override
+			public void notifyChanged(Notification notification) {
+				super.notifyChanged(notification);
+				if (notification.getFeature() instanceof EReference
+						&& ((EReference) notification.getFeature()).isContainment()) {
+					handleContainment(notification);
+				}
+				ContentAdapterIndex.this.notifyChanged(notification);
+				listener.notifyChanged(notification);
+			}
+		};
+
+		ContentAdapterIndex(GGraph graph) {
+			super(graph);
+		}
+
+		void handleContainment(Notification notification) {
+			switch (notification.getEventType()) {
+			case Notification.SET:
+			case Notification.UNSET:
+				remove(notification.getOldValue());
+				add(notification.getNewValue());
+				break;
+			case Notification.ADD:
+				add(notification.getNewValue());
+				break;
+			case Notification.ADD_MANY:
+				((Collection<?>) notification.getNewValue()).forEach(this::add);
+				break;
+			case Notification.REMOVE:
+				remove(notification.getOldValue());
+				break;
+			case Notification.REMOVE_MANY:
+				((Collection<?>) notification.getOldValue()).forEach(this::remove);
+				break;
+			}
+		}
+
+		void add(Object value) {
+			if (value instanceof GModelElement) {
+				notifyAdd((GModelElement) value);
+			}
+		}
+
+		void remove(Object value) {
+			if (value instanceof GModelElement) {
+				notifyRemove((GModelElement) value);
+			}
+		}
+	}
+
+}
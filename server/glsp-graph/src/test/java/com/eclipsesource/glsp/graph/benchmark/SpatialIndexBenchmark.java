@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.eclipsesource.glsp.graph.GBounds;
+import com.eclipsesource.glsp.graph.GBoundsAware;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GSpatialIndex;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+
+/**
+ * Compares rectangle queries on the {@link GSpatialIndex} with a linear scan
+ * over all nodes of a graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+	private static final double NODE_SIZE = 40;
+	private static final double NODE_DISTANCE = 100;
+	private static final int QUERIES = 64;
+
+	@Param({ "1000", "20000" })
+	private int nodeCount;
+
+	private GGraph graph;
+	private GSpatialIndex spatialIndex;
+	private GBounds[] queries;
+
+	@Setup
+	public void setUp() {
+		graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graph");
+		int columns = (int) Math.ceil(Math.sqrt(nodeCount));
+		for (int i = 0; i < nodeCount; i++) {
+			GNode node = GraphFactory.eINSTANCE.createGNode();
+			node.setId("node" + i);
+			node.setPosition(GraphUtil.point((i % columns) * NODE_DISTANCE, (i / columns) * NODE_DISTANCE));
+			node.setSize(GraphUtil.dimension(NODE_SIZE, NODE_SIZE));
+			graph.getChildren().add(node);
+		}
+		spatialIndex = GModelIndex.get(graph).getSpatialIndex();
+
+		Random random = new Random(42);
+		double extent = columns * NODE_DISTANCE;
+		queries = new GBounds[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = GraphUtil.bounds(random.nextDouble() * extent, random.nextDouble() * extent, 800, 600);
+		}
+	}
+
+	@Benchmark
+	public int spatialIndexQuery() {
+		int found = 0;
+		for (GBounds query : queries) {
+			found += spatialIndex.getElementsIntersecting(query).size();
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int linearScanQuery() {
+		int found = 0;
+		for (GBounds query : queries) {
+			found += linearScan(query).size();
+		}
+		return found;
+	}
+
+	private List<GModelElement> linearScan(GBounds query) {
+		List<GModelElement> result = new ArrayList<>();
+		for (GModelElement child : graph.getChildren()) {
+			if (child instanceof GBoundsAware) {
+				GBoundsAware boundsAware = (GBoundsAware) child;
+				double x = boundsAware.getPosition().getX();
+				double y = boundsAware.getPosition().getY();
+				if (x <= query.getX() + query.getWidth() && x + boundsAware.getSize().getWidth() >= query.getX()
+						&& y <= query.getY() + query.getHeight()
+						&& y + boundsAware.getSize().getHeight() >= query.getY()) {
+					result.add(child);
+				}
+			}
+		}
+		return result;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SpatialIndexBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.graph.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.graph.GBounds;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GSpatialIndex;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.impl.GGridSpatialIndex;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+
+class GGridSpatialIndexTest {
+
+	private GGraph graph;
+	private GNode node1;
+	private GNode node2;
+	private GNode child;
+
+	@BeforeEach
+	void setUpGraph() {
+		graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		node1 = createNode("node1", 10, 10, 20, 20);
+		node2 = createNode("node2", 100, 100, 50, 50);
+		child = createNode("child", 5, 5, 10, 10);
+		node2.getChildren().add(child);
+		graph.getChildren().add(node1);
+		graph.getChildren().add(node2);
+	}
+
+	@Test
+	void testQueryAbsoluteBounds() {
+		GSpatialIndex spatialIndex = GModelIndex.get(graph).getSpatialIndex();
+
+		assertBounds(spatialIndex, child, 105, 105, 10, 10);
+		assertEquals(Arrays.asList(node1), spatialIndex.getElementsAt(GraphUtil.point(15, 15)));
+		assertElements(spatialIndex.getElementsAt(GraphUtil.point(110, 110)), node2, child);
+		assertElements(spatialIndex.getElementsIntersecting(GraphUtil.bounds(0, 0, 101, 101)), node1, node2);
+		assertElements(spatialIndex.getElementsContainedIn(GraphUtil.bounds(0, 0, 120, 120)), node1, child);
+		assertTrue(spatialIndex.getElementsAt(GraphUtil.point(50, 50)).isEmpty());
+		assertFalse(spatialIndex.getAbsoluteBounds(graph).isPresent());
+	}
+
+	@Test
+	void testElementsSpanningSeveralCellsAreReportedOnce() {
+		GGridSpatialIndex spatialIndex = new GGridSpatialIndex(graph, 10);
+		spatialIndex.addAll(Arrays.asList(node1, node2, child));
+
+		// node2 covers 6x6 cells, child 2x2 cells and node1 3x3 cells
+		assertElements(spatialIndex.getElementsIntersecting(GraphUtil.bounds(0, 0, 200, 200)), node1, node2, child);
+		assertElements(spatialIndex.getElementsIntersecting(GraphUtil.bounds(104, 104, 3, 3)), node2, child);
+		assertElements(spatialIndex.getElementsContainedIn(GraphUtil.bounds(0, 0, 200, 200)), node1, node2, child);
+	}
+
+	@Test
+	void testLargeElementsAreReportedOnce() {
+		GGridSpatialIndex spatialIndex = new GGridSpatialIndex(graph, 1);
+		spatialIndex.addAll(Arrays.asList(node1, node2, child));
+
+		// node2 covers more cells than are kept per element
+		assertElements(spatialIndex.getElementsAt(GraphUtil.point(110, 110)), node2, child);
+		assertElements(spatialIndex.getElementsIntersecting(GraphUtil.bounds(0, 0, 200, 200)), node1, node2, child);
+	}
+
+	@Test
+	void testUpdateOnMove() {
+		GSpatialIndex spatialIndex = GModelIndex.get(graph).getSpatialIndex();
+
+		node2.setPosition(GraphUtil.point(300, 300));
+		assertTrue(spatialIndex.getElementsAt(GraphUtil.point(110, 110)).isEmpty());
+		assertElements(spatialIndex.getElementsAt(GraphUtil.point(310, 310)), node2, child);
+		assertBounds(spatialIndex, child, 305, 305, 10, 10);
+
+		node1.getPosition().setX(500);
+		assertTrue(spatialIndex.getElementsAt(GraphUtil.point(15, 15)).isEmpty());
+		assertEquals(Arrays.asList(node1), spatialIndex.getElementsAt(GraphUtil.point(515, 15)));
+
+		node1.getSize().setWidth(100);
+		assertEquals(Arrays.asList(node1), spatialIndex.getElementsAt(GraphUtil.point(590, 15)));
+	}
+
+	@Test
+	void testUpdateOnRemove() {
+		GSpatialIndex spatialIndex = GModelIndex.get(graph).getSpatialIndex();
+
+		graph.getChildren().remove(node2);
+		assertTrue(spatialIndex.getElementsAt(GraphUtil.point(110, 110)).isEmpty());
+		assertFalse(spatialIndex.getAbsoluteBounds(child).isPresent());
+
+		graph.getChildren().add(node2);
+		assertElements(spatialIndex.getElementsAt(GraphUtil.point(110, 110)), node2, child);
+	}
+
+	private static GNode createNode(String id, double x, double y, double width, double height) {
+		GNode node = GraphFactory.eINSTANCE.createGNode();
+		node.setId(id);
+		node.setPosition(GraphUtil.point(x, y));
+		node.setSize(GraphUtil.dimension(width, height));
+		return node;
+	}
+
+	private static void assertBounds(GSpatialIndex spatialIndex, GModelElement element, double x, double y,
+			double width, double height) {
+		GBounds bounds = spatialIndex.getAbsoluteBounds(element).get();
+		assertEquals(x, bounds.getX());
+		assertEquals(y, bounds.getY());
+		assertEquals(width, bounds.getWidth());
+		assertEquals(height, bounds.getHeight());
+	}
+
+	private static void assertElements(List<GModelElement> actual, GModelElement... expected) {
+		assertEquals(expected.length, actual.size());
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(actual));
+	}
+
+}
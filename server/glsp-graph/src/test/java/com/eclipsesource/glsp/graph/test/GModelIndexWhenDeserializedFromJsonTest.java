@@ -77,6 +77,25 @@ class GModelIndexWhenDeserializedFromJsonTest {
 		assertTrue(incomingEdgesOfNode2.contains(edge));
 	}
 
+	@Test
+	void testGetIncomingAfterReconnect() throws IOException {
+		GGraph graph = loadResource("graphWithTwoNodesAndOneEdge.graph");
+		GModelElement node1 = graph.getChildren().get(0);
+		GModelElement node2 = graph.getChildren().get(1);
+		GEdge edge = (GEdge) graph.getChildren().get(2);
+		GModelIndex index = GModelIndex.get(graph);
+
+		edge.setTargetId(node1.getId());
+		assertEquals(1, index.getIncomingEdgeCount(node1));
+		assertEquals(1, index.getOutgoingEdgeCount(node1));
+		assertEquals(0, index.getIncomingEdgeCount(node2));
+		assertTrue(index.getIncomingEdges(node1).contains(edge));
+
+		graph.getChildren().remove(edge);
+		assertEquals(0, index.getIncomingEdgeCount(node1));
+		assertEquals(0, index.getOutgoingEdges(node1).size());
+	}
+
 	private GGraph loadResource(String file) throws IOException {
 		Gson gson = gsonConfigurator.configureGsonBuilder(new GsonBuilder()).create();
 		JsonReader jsonReader = new JsonReader(new FileReader(RESOURCE_PATH + file));
@@ -16,8 +16,10 @@
 package com.eclipsesource.glsp.server.websocket;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import org.eclipse.lsp4j.jsonrpc.Launcher.Builder;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
 import org.eclipse.lsp4j.websocket.WebSocketEndpoint;
 
 import com.eclipsesource.glsp.api.json.GsonConfigurator;
@@ -39,6 +41,9 @@ public class GLSPServerEndpoint extends WebSocketEndpoint<GLSPClient> {
 		builder.setLocalService(glspServer);
 		builder.setRemoteInterface(GLSPClient.class);
 		builder.configureGson(gsonConfigurator::configureGsonBuilder);
+		// stream outgoing messages instead of building their JSON strings in memory
+		builder.wrapMessages(StreamingWebSocketMessageConsumer
+				.wrapper(new MessageJsonHandler(Collections.emptyMap(), gsonConfigurator::configureGsonBuilder)));
 	}
 
 	@Override
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.websocket;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Function;
+
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import org.apache.log4j.Logger;
+import org.eclipse.lsp4j.jsonrpc.JsonRpcException;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.websocket.WebSocketMessageConsumer;
+
+import com.google.gson.JsonIOException;
+
+/**
+ * Writes JSON-RPC messages to a websocket session without building the
+ * complete JSON string of a message in memory. The message is serialized
+ * straight into partial text frames of at most the chunk size, so the peak
+ * memory of a send no longer depends on the size of the message.
+ * <p>
+ * If the serialization of a message fails after its first frames have been
+ * sent, the session is closed, as the client cannot recover from a truncated
+ * message.
+ * </p>
+ */
+public class StreamingWebSocketMessageConsumer implements MessageConsumer {
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private static Logger LOG = Logger.getLogger(StreamingWebSocketMessageConsumer.class);
+
+	private final Session session;
+	private final MessageJsonHandler jsonHandler;
+	private final int chunkSize;
+
+	public StreamingWebSocketMessageConsumer(Session session, MessageJsonHandler jsonHandler) {
+		this(session, jsonHandler, DEFAULT_CHUNK_SIZE);
+	}
+
+	public StreamingWebSocketMessageConsumer(Session session, MessageJsonHandler jsonHandler, int chunkSize) {
+		this.session = session;
+		this.jsonHandler = jsonHandler;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Returns a message wrapper for an lsp4j websocket launcher that replaces the
+	 * default consumer of outgoing messages with a streaming consumer. All other
+	 * consumers are kept.
+	 * 
+	 * @param jsonHandler the handler to serialize the messages with, configured
+	 *                    like the handler of the launcher
+	 */
+	public static Function<MessageConsumer, MessageConsumer> wrapper(MessageJsonHandler jsonHandler) {
+		return consumer -> consumer instanceof WebSocketMessageConsumer
+				? new StreamingWebSocketMessageConsumer(((WebSocketMessageConsumer) consumer).getSession(),
+						jsonHandler)
+				: consumer;
+	}
+
+	@Override
+	public void consume(Message message) {
+		if (!session.isOpen()) {
+			return;
+		}
+		// the partial frames of one message must not interleave with another one
+		synchronized (this) {
+			PartialTextWriter writer = new PartialTextWriter(session.getBasicRemote(), chunkSize);
+			try {
+				jsonHandler.serialize(message, writer);
+				writer.close();
+			} catch (IOException | JsonIOException e) {
+				abort(writer, e);
+				throw new JsonRpcException(e);
+			} catch (RuntimeException e) {
+				abort(writer, e);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Closes the session if parts of the failed message have already been sent.
+	 * The last part is never sent, as the client would receive malformed JSON,
+	 * and the frames of the next message would continue the truncated one.
+	 */
+	private void abort(PartialTextWriter writer, Exception cause) {
+		if (!writer.hasSentParts()) {
+			return;
+		}
+		LOG.error("Could not send a message, closing the session", cause);
+		try {
+			session.close(new CloseReason(CloseCodes.UNEXPECTED_CONDITION, "Could not send message"));
+		} catch (IOException e) {
+			LOG.warn("Could not close the session", e);
+		}
+	}
+
+	/**
+	 * Sends the written text as partial messages of at most the given size. The
+	 * last part is sent when the writer is closed. A part never ends with the
+	 * high surrogate of a surrogate pair, as each part is encoded on its own.
+	 */
+	private static class PartialTextWriter extends Writer {
+		private final RemoteEndpoint.Basic remote;
+		private final char[] buffer;
+		private int count;
+		private boolean sentParts;
+
+		PartialTextWriter(RemoteEndpoint.Basic remote, int size) {
+			this.remote = remote;
+			// room for at least one character besides a held back high surrogate
+			this.buffer = new char[Math.max(2, size)];
+		}
+
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException {
+			while (length > 0) {
+				if (count == buffer.length) {
+					sendPart();
+				}
+				int copied = Math.min(length, buffer.length - count);
+				System.arraycopy(chars, offset, buffer, count, copied);
+				count += copied;
+				offset += copied;
+				length -= copied;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// parts are only sent once they are full
+		}
+
+		private void sendPart() throws IOException {
+			int sent = Character.isHighSurrogate(buffer[count - 1]) ? count - 1 : count;
+			remote.sendText(new String(buffer, 0, sent), false);
+			sentParts = true;
+			System.arraycopy(buffer, sent, buffer, 0, count - sent);
+			count -= sent;
+		}
+
+		boolean hasSentParts() {
+			return sentParts;
+		}
+
+		@Override
+		public void close() throws IOException {
+			remote.sendText(new String(buffer, 0, count), true);
+		}
+	}
+
+}
@@ -23,6 +23,7 @@ import com.eclipsesource.glsp.api.action.kind.CollapseExpandAction;
 import com.eclipsesource.glsp.api.action.kind.CollapseExpandAllAction;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.model.ModelExpansionListener;
+import com.eclipsesource.glsp.graph.GModelElementIdSet;
 import com.google.inject.Inject;
 
 public class CollapseExpandActionHandler extends AbstractActionHandler {
@@ -51,7 +52,11 @@ public class CollapseExpandActionHandler extends AbstractActionHandler {
 		Set<String> expandedElements = modelState.getExpandedElements();
 		expandedElements.clear();
 		if (action.isExpand()) {
-			modelState.getIndex().allIds().forEach(id -> expandedElements.add(id));
+			if (expandedElements instanceof GModelElementIdSet) {
+				((GModelElementIdSet) expandedElements).addAllIndexed();
+			} else {
+				modelState.getIndex().allIds().forEach(id -> expandedElements.add(id));
+			}
 		}
 		if (expansionListener != null) {
 			expansionListener.expansionChanged(action);
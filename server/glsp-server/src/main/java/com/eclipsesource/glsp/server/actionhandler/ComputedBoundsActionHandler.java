@@ -17,16 +17,23 @@ package com.eclipsesource.glsp.server.actionhandler;
 
 import java.util.Optional;
 
+import org.apache.log4j.Logger;
+
 import com.eclipsesource.glsp.api.action.Action;
 import com.eclipsesource.glsp.api.action.kind.ComputedBoundsAction;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.utils.LayoutUtil;
 import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.server.layout.BoundsCache;
 import com.google.inject.Inject;
 
 public class ComputedBoundsActionHandler extends AbstractActionHandler {
+	private static Logger LOG = Logger.getLogger(ComputedBoundsActionHandler.class);
+
 	@Inject
 	protected ModelSubmissionHandler submissionHandler;
+	@Inject
+	protected BoundsCache boundsCache;
 
 	@Override
 	public boolean handles(Action action) {
@@ -38,12 +45,17 @@ public class ComputedBoundsActionHandler extends AbstractActionHandler {
 		if (action instanceof ComputedBoundsAction) {
 			ComputedBoundsAction computedBoundsAction = (ComputedBoundsAction) action;
 
-			synchronized (submissionHandler.getModelLock()) {
+			synchronized (modelState.getModelLock()) {
+				// pending submissions are sent once the previous revision is answered
+				submissionHandler.boundsComputed(modelState, computedBoundsAction.getRevision());
 				GModelRoot model = modelState.getRoot();
 				if (model != null && model.getRevision() == computedBoundsAction.getRevision()) {
 					LayoutUtil.applyBounds(model, computedBoundsAction, modelState);
+					boundsCache.update(modelState, computedBoundsAction);
 					return submissionHandler.doSubmitModel(true, modelState);
 				}
+				LOG.debug("Dropping computed bounds of revision " + computedBoundsAction.getRevision()
+						+ ", the model is at revision " + modelState.getRevision());
 			}
 		}
 		return Optional.empty();
@@ -20,9 +20,11 @@ import java.util.Optional;
 import com.eclipsesource.glsp.api.action.Action;
 import com.eclipsesource.glsp.api.action.ActionProcessor;
 import com.eclipsesource.glsp.api.action.ActionMessage;
+import com.eclipsesource.glsp.api.action.ResponseAction;
 import com.eclipsesource.glsp.api.handler.ActionHandler;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPClient;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPClientProvider;
+import com.eclipsesource.glsp.api.model.ModelStateProvider;
 import com.eclipsesource.glsp.api.provider.ActionHandlerProvider;
 import com.google.inject.Inject;
 
@@ -34,6 +36,26 @@ public class DIActionProcessor implements ActionProcessor {
 	@Inject
 	protected ActionHandlerProvider handlerProvider;
 
+	@Inject
+	protected ModelStateProvider modelStateProvider;
+
+	@Inject
+	protected ModelSubmissionHandler submissionHandler;
+
+	/**
+	 * Sends the model changed by the handler before the response, as the response
+	 * is sent on this thread, while model submissions are deferred to the thread of
+	 * the {@link ModelSubmissionHandler}.
+	 */
+	@Override
+	public void process(String clientId, Action action) {
+		Optional<Action> response = dispatch(clientId, action);
+		if (response.isPresent()) {
+			modelStateProvider.getModelState(clientId).ifPresent(submissionHandler::submitPending);
+			send(clientId, ResponseAction.respond(action, response.get()));
+		}
+	}
+
 	@Override
 	public Optional<Action> dispatch(String clientId, Action action) {
 		Optional<ActionHandler> handler = handlerProvider.getHandler(action);
@@ -19,7 +19,6 @@ import java.util.Optional;
 
 import com.eclipsesource.glsp.api.action.Action;
 import com.eclipsesource.glsp.api.action.kind.LayoutAction;
-import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
 import com.eclipsesource.glsp.api.configuration.ServerConfiguration;
 import com.eclipsesource.glsp.api.layout.ILayoutEngine;
 import com.eclipsesource.glsp.api.layout.ServerLayoutKind;
@@ -45,7 +44,8 @@ public class LayoutActionHandler extends AbstractActionHandler {
 			if (layoutEngine != null) {
 				layoutEngine.layout(modelState);
 			}
-			return Optional.of(new RequestBoundsAction(modelState.getRoot()));
+			modelSubmissionHandler.scheduleSubmission(modelState);
+			return Optional.empty();
 		}
 		return Optional.empty();
 	}
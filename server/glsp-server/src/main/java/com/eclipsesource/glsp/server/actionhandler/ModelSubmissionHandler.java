@@ -15,46 +15,189 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.server.actionhandler;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.eclipsesource.glsp.api.action.Action;
+import com.eclipsesource.glsp.api.action.ActionProcessor;
+import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
 import com.eclipsesource.glsp.api.action.kind.SetModelAction;
 import com.eclipsesource.glsp.api.action.kind.UpdateModelAction;
 import com.eclipsesource.glsp.api.configuration.ServerConfiguration;
+import com.eclipsesource.glsp.api.layout.BoundsEstimator;
 import com.eclipsesource.glsp.api.layout.ILayoutEngine;
 import com.eclipsesource.glsp.api.layout.ServerLayoutKind;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.eclipsesource.glsp.api.model.ModelPatchBuilder;
+import com.eclipsesource.glsp.api.types.Match;
+import com.eclipsesource.glsp.api.utils.ClientOptions;
 import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.server.layout.BoundsCache;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
 
 @Singleton
 public class ModelSubmissionHandler {
+	public static final long DEFAULT_SUBMISSION_WINDOW_MILLIS = 10;
+	public static final long DEFAULT_ACKNOWLEDGE_TIMEOUT_MILLIS = 5000;
+
 	@Inject(optional = true)
 	protected ILayoutEngine layoutEngine = new ILayoutEngine.NullImpl();
+	@Inject(optional = true)
+	protected BoundsEstimator boundsEstimator = new BoundsEstimator.NullImpl();
+	@Inject
+	protected BoundsCache boundsCache;
 	@Inject
 	protected ServerConfiguration serverConfiguration;
-	private Object modelLock = new Object();
-	private int revision = 0;
+	@Inject
+	protected Provider<ActionProcessor> actionProcessor;
+
+	// the schedulers reference their model states, so they are removed explicitly on dispose
+	private final Map<GraphicalModelState, ModelSubmissionScheduler> schedulers = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "GLSP model submission");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private long submissionWindowMillis = DEFAULT_SUBMISSION_WINDOW_MILLIS;
+	private long acknowledgeTimeoutMillis = DEFAULT_ACKNOWLEDGE_TIMEOUT_MILLIS;
+
+	/**
+	 * Schedules the submission of the changed model of the given model state to
+	 * the client, which requests its bounds if they cannot be estimated on the
+	 * server. Submissions that follow each other closely or arrive while the
+	 * client computes the bounds of a previous revision are coalesced, so that
+	 * only the latest revision is sent.
+	 */
+	public void scheduleSubmission(GraphicalModelState modelState) {
+		getScheduler(modelState).schedule();
+	}
+
+	/**
+	 * @deprecated the submission is sent asynchronously, use
+	 *             {@link #scheduleSubmission(GraphicalModelState)} instead
+	 * @return always {@link Optional#empty()}
+	 */
+	@Deprecated
+	public Optional<Action> requestBounds(GraphicalModelState modelState) {
+		scheduleSubmission(modelState);
+		return Optional.empty();
+	}
+
+	/**
+	 * Notifies the scheduler of the given model state that the client has
+	 * computed the bounds of the given revision.
+	 */
+	public void boundsComputed(GraphicalModelState modelState, int revision) {
+		ModelSubmissionScheduler scheduler = schedulers.get(modelState);
+		if (scheduler != null) {
+			scheduler.acknowledge(revision);
+		}
+	}
+
+	/**
+	 * Sends a pending submission of the given model state right away, so that a
+	 * subsequent response does not overtake it.
+	 */
+	public void submitPending(GraphicalModelState modelState) {
+		ModelSubmissionScheduler scheduler = schedulers.get(modelState);
+		if (scheduler != null) {
+			scheduler.submitPending();
+		}
+	}
+
+	public ModelSubmissionScheduler getScheduler(GraphicalModelState modelState) {
+		return schedulers.computeIfAbsent(modelState, this::createScheduler);
+	}
+
+	/**
+	 * Discards the scheduler of the given model state, e.g. when its client has
+	 * disconnected.
+	 */
+	public void dispose(GraphicalModelState modelState) {
+		ModelSubmissionScheduler scheduler = schedulers.remove(modelState);
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+	protected ModelSubmissionScheduler createScheduler(GraphicalModelState modelState) {
+		return new ModelSubmissionScheduler(modelState, executor,
+				(clientId, action) -> actionProcessor.get().send(clientId, action),
+				state -> createSubmission(true, state), submissionWindowMillis, acknowledgeTimeoutMillis);
+	}
+
+	/**
+	 * Creates the action that submits the current model of the given model
+	 * state. If the {@link BoundsCache} or the {@link BoundsEstimator} know the
+	 * bounds of all elements, the model is sent right away. Otherwise the client
+	 * is asked to compute the bounds first and the model is submitted once they
+	 * are applied.
+	 */
+	public Action createSubmission(boolean update, GraphicalModelState modelState) {
+		synchronized (modelState.getModelLock()) {
+			if (boundsCache.fill(modelState) || boundsEstimator.estimateBounds(modelState)) {
+				Optional<Action> submission = doSubmitModel(update, modelState);
+				if (submission.isPresent()) {
+					return submission.get();
+				}
+			}
+			return new RequestBoundsAction(modelState.getRoot());
+		}
+	}
+
+	/**
+	 * Sets the time a submission waits for further changes of the model. Applies
+	 * to model states that have not submitted their model yet.
+	 */
+	public void setSubmissionWindowMillis(long submissionWindowMillis) {
+		this.submissionWindowMillis = submissionWindowMillis;
+	}
+
+	/**
+	 * Sets the time after which an unanswered bounds request no longer blocks
+	 * further submissions. Applies to model states that have not submitted their
+	 * model yet.
+	 */
+	public void setAcknowledgeTimeoutMillis(long acknowledgeTimeoutMillis) {
+		this.acknowledgeTimeoutMillis = acknowledgeTimeoutMillis;
+	}
 
 	public Optional<Action> doSubmitModel(boolean update, GraphicalModelState modelState) {
 		GModelRoot newRoot = modelState.getRoot();
 		if (serverConfiguration.getLayoutKind() == ServerLayoutKind.AUTOMATIC) {
 			layoutEngine.layout(modelState);
 		}
-		synchronized (modelLock) {
-			if (newRoot.getRevision() == revision) {
-				if (update) {
-					return Optional.of(new UpdateModelAction(newRoot, true));
-				} else {
-					return Optional.of(new SetModelAction(newRoot));
-				}
+		synchronized (modelState.getModelLock()) {
+			Optional<ModelPatchBuilder> patchBuilder = getPatchBuilder(modelState);
+			Optional<List<Match>> patch = update
+					? patchBuilder.flatMap(ModelPatchBuilder::buildPatch)
+					: Optional.empty();
+			patchBuilder.ifPresent(ModelPatchBuilder::reset);
+			if (patch.isPresent()) {
+				return Optional.of(new UpdateModelAction(patch.get(), true));
+			} else if (update) {
+				return Optional.of(new UpdateModelAction(newRoot, true));
+			} else {
+				return Optional.of(new SetModelAction(newRoot));
 			}
 		}
-		return Optional.empty();
 	}
 
-	public synchronized Object getModelLock() {
-		return modelLock;
+	/**
+	 * Returns the builder for incremental updates of the given model state if the
+	 * client supports them.
+	 */
+	protected Optional<ModelPatchBuilder> getPatchBuilder(GraphicalModelState modelState) {
+		if (modelState.getClientOptions() == null
+				|| !ClientOptions.getBoolValue(modelState.getClientOptions(), ClientOptions.SUPPORTS_MODEL_PATCHES)) {
+			return Optional.empty();
+		}
+		return modelState.getPatchBuilder();
 	}
 }
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.actionhandler;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+
+import com.eclipsesource.glsp.api.action.Action;
+import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
+import com.eclipsesource.glsp.api.model.GraphicalModelState;
+
+/**
+ * Coalesces the submissions of the model of one client. Instead of requesting
+ * the bounds of the model after every change, a submission is deferred for a
+ * short window, so that changes arriving in quick succession go out as one
+ * revision. While the client has not answered the previous request, further
+ * submissions are only marked as pending and the latest revision is sent once
+ * the client acknowledges the previous one, or the acknowledgement timed out.
+ * Submissions that send the model directly, because its bounds are already
+ * known on the server, do not wait for an acknowledgement.
+ * <p>
+ * Deferred submissions are sent from the thread of the executor, while the
+ * responses of action handlers are sent from the thread that processes the
+ * request. To keep a response from overtaking the model it may refer to,
+ * {@link #submitPending()} sends a pending submission right away on the
+ * calling thread before the response is sent. A submission that waits for the
+ * acknowledgement of the previous request is still sent later.
+ * </p>
+ */
+public class ModelSubmissionScheduler {
+
+	private static Logger LOG = Logger.getLogger(ModelSubmissionScheduler.class);
+
+	private final GraphicalModelState modelState;
+	private final ScheduledExecutorService executor;
+	private final BiConsumer<String, Action> sender;
+	private final Function<GraphicalModelState, Action> submission;
+	private long windowMillis;
+	private long acknowledgeTimeoutMillis;
+
+	private boolean pending;
+	private ScheduledFuture<?> scheduledFlush;
+	private ScheduledFuture<?> acknowledgeTimeout;
+	private int inFlightRevision = -1;
+	private boolean disposed;
+
+	/**
+	 * @param modelState               the model state whose model is submitted
+	 * @param executor                 the executor that performs the deferred
+	 *                                 submissions
+	 * @param sender                   sends an action to the client with the
+	 *                                 given id
+	 * @param submission               creates the action that submits the
+	 *                                 current model, either the model itself or
+	 *                                 a {@link RequestBoundsAction}
+	 * @param windowMillis             the time to wait for further changes
+	 *                                 before a submission is sent
+	 * @param acknowledgeTimeoutMillis the time after which an unanswered request
+	 *                                 no longer blocks further submissions
+	 */
+	public ModelSubmissionScheduler(GraphicalModelState modelState, ScheduledExecutorService executor,
+			BiConsumer<String, Action> sender, Function<GraphicalModelState, Action> submission, long windowMillis,
+			long acknowledgeTimeoutMillis) {
+		this.modelState = modelState;
+		this.executor = executor;
+		this.sender = sender;
+		this.submission = submission;
+		this.windowMillis = windowMillis;
+		this.acknowledgeTimeoutMillis = acknowledgeTimeoutMillis;
+	}
+
+	/**
+	 * Schedules the submission of the current model.
+	 */
+	public synchronized void schedule() {
+		if (disposed) {
+			return;
+		}
+		pending = true;
+		if (inFlightRevision < 0) {
+			scheduleFlush(windowMillis);
+		}
+	}
+
+	/**
+	 * Notifies the scheduler that the client has answered the request for the
+	 * given revision. Pending submissions are sent right away.
+	 * 
+	 * @param revision the revision the client has computed the bounds for
+	 */
+	public synchronized void acknowledge(int revision) {
+		if (inFlightRevision >= 0 && revision >= inFlightRevision) {
+			releaseInFlight();
+		}
+	}
+
+	private synchronized void acknowledgeTimedOut(int revision) {
+		if (inFlightRevision == revision) {
+			LOG.debug("Client " + modelState.getClientId() + " did not answer the request for revision " + revision);
+			releaseInFlight();
+		}
+	}
+
+	private void releaseInFlight() {
+		inFlightRevision = -1;
+		if (acknowledgeTimeout != null) {
+			acknowledgeTimeout.cancel(false);
+			acknowledgeTimeout = null;
+		}
+		if (pending) {
+			scheduleFlush(0);
+		}
+	}
+
+	/**
+	 * Sends a pending submission right away on the calling thread, unless the
+	 * client has not answered the previous request yet.
+	 */
+	public void submitPending() {
+		synchronized (this) {
+			if (!pending || inFlightRevision >= 0) {
+				return;
+			}
+			if (scheduledFlush != null) {
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+		}
+		flush();
+	}
+
+	/**
+	 * Discards pending submissions and cancels the scheduled tasks. Further
+	 * submissions are ignored.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		pending = false;
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+		if (acknowledgeTimeout != null) {
+			acknowledgeTimeout.cancel(false);
+			acknowledgeTimeout = null;
+		}
+	}
+
+	private void scheduleFlush(long delayMillis) {
+		if (scheduledFlush == null && !disposed) {
+			scheduledFlush = executor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sends the current model to the client. The model lock is held while the
+	 * action is sent, so the model cannot change while it is serialized.
+	 */
+	protected void flush() {
+		synchronized (modelState.getModelLock()) {
+			int revision;
+			synchronized (this) {
+				scheduledFlush = null;
+				if (!pending || inFlightRevision >= 0 || disposed) {
+					return;
+				}
+				pending = false;
+				revision = modelState.getRevision();
+			}
+			try {
+				Action action = submission.apply(modelState);
+				if (action instanceof RequestBoundsAction) {
+					awaitAcknowledge(revision);
+				}
+				sender.accept(modelState.getClientId(), action);
+			} catch (RuntimeException e) {
+				LOG.error("Could not submit revision " + revision + " to client " + modelState.getClientId(), e);
+				acknowledge(revision);
+			}
+		}
+	}
+
+	private synchronized void awaitAcknowledge(int revision) {
+		inFlightRevision = revision;
+		acknowledgeTimeout = executor.schedule(() -> acknowledgeTimedOut(revision), acknowledgeTimeoutMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized boolean isPending() {
+		return pending;
+	}
+
+	public synchronized void setWindowMillis(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	public synchronized void setAcknowledgeTimeoutMillis(long acknowledgeTimeoutMillis) {
+		this.acknowledgeTimeoutMillis = acknowledgeTimeoutMillis;
+	}
+
+}
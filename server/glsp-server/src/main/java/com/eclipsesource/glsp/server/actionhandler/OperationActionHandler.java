@@ -16,19 +16,24 @@
 package com.eclipsesource.glsp.server.actionhandler;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import com.eclipsesource.glsp.api.action.Action;
 import com.eclipsesource.glsp.api.action.kind.AbstractOperationAction;
-import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
+import com.eclipsesource.glsp.api.action.kind.ChangeBoundsOperationAction;
+import com.eclipsesource.glsp.api.action.kind.RerouteConnectionOperationAction;
 import com.eclipsesource.glsp.api.handler.OperationHandler;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.provider.OperationHandlerProvider;
+import com.eclipsesource.glsp.api.types.ElementAndBounds;
 import com.eclipsesource.glsp.server.command.GModelRecordingCommand;
 import com.google.inject.Inject;
 
 public class OperationActionHandler extends AbstractActionHandler {
 	@Inject
 	protected OperationHandlerProvider operationHandlerProvider;
+	@Inject
+	protected ModelSubmissionHandler submissionHandler;
 
 	@Override
 	public boolean handles(Action action) {
@@ -55,12 +60,38 @@ public class OperationActionHandler extends AbstractActionHandler {
 		if (operationHandlerProvider.isHandled(action)) {
 			OperationHandler handler = operationHandlerProvider.getHandler(action).get();
 			String label = handler.getLabel(action);
-			GModelRecordingCommand command = new GModelRecordingCommand(modelState.getRoot(), label,
+			GModelRecordingCommand command = createCommand(action, modelState, label,
 					() -> handler.execute(action, modelState));
 			modelState.execute(command);
-			return Optional.of(new RequestBoundsAction(modelState.getRoot()));
+			submissionHandler.scheduleSubmission(modelState);
+			return Optional.empty();
 		}
 		return Optional.empty();
 	}
 
+	protected GModelRecordingCommand createCommand(AbstractOperationAction action, GraphicalModelState modelState,
+			String label, Runnable runnable) {
+		GModelRecordingCommand command = new GModelRecordingCommand(modelState.getRoot(), label, runnable);
+		command.setGestureId(action.getGestureId());
+		command.setMergeKey(getMergeKey(action));
+		return command;
+	}
+
+	/**
+	 * Returns the key under which successive operations are merged into one
+	 * undoable command. Bounds changes and reroutes are merged if they affect the
+	 * same elements.
+	 */
+	protected String getMergeKey(AbstractOperationAction action) {
+		if (action instanceof ChangeBoundsOperationAction
+				&& ((ChangeBoundsOperationAction) action).getNewBounds() != null) {
+			return action.getKind() + ":" + ((ChangeBoundsOperationAction) action).getNewBounds().stream()
+					.map(ElementAndBounds::getElementId).sorted().collect(Collectors.joining(","));
+		}
+		if (action instanceof RerouteConnectionOperationAction) {
+			return action.getKind() + ":" + ((RerouteConnectionOperationAction) action).getConnectionElementId();
+		}
+		return null;
+	}
+
 }
@@ -18,7 +18,6 @@ package com.eclipsesource.glsp.server.actionhandler;
 import java.util.Optional;
 
 import com.eclipsesource.glsp.api.action.Action;
-import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
 import com.eclipsesource.glsp.api.action.kind.RequestModelAction;
 import com.eclipsesource.glsp.api.action.kind.SetModelAction;
 import com.eclipsesource.glsp.api.factory.ModelFactory;
@@ -31,6 +30,8 @@ public class RequestModelActionHandler extends AbstractActionHandler {
 
 	@Inject
 	protected ModelFactory modelFactory;
+	@Inject
+	protected ModelSubmissionHandler submissionHandler;
 
 	@Override
 	public Optional<Action> execute(String clientId, Action action) {
@@ -53,7 +54,7 @@ public class RequestModelActionHandler extends AbstractActionHandler {
 			boolean needsClientLayout = ClientOptions.getBoolValue(requestAction.getOptions(),
 					ClientOptions.NEEDS_CLIENT_LAYOUT);
 
-			Action responseAction = needsClientLayout ? new RequestBoundsAction(modelState.getRoot())
+			Action responseAction = needsClientLayout ? submissionHandler.createSubmission(false, modelState)
 					: new SetModelAction(modelState.getRoot());
 			return Optional.of(responseAction);
 		}
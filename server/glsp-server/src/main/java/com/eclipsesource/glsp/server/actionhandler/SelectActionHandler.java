@@ -23,6 +23,7 @@ import com.eclipsesource.glsp.api.action.kind.SelectAction;
 import com.eclipsesource.glsp.api.action.kind.SelectAllAction;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.model.ModelSelectionListener;
+import com.eclipsesource.glsp.graph.GModelElementIdSet;
 import com.google.inject.Inject;
 
 public class SelectActionHandler extends AbstractActionHandler {
@@ -50,7 +51,11 @@ public class SelectActionHandler extends AbstractActionHandler {
 	private Optional<Action> handleSelectAllAction(SelectAllAction action, GraphicalModelState modelState) {
 		Set<String> selectedElements = modelState.getSelectedElements();
 		if (action.isSelect()) {
-			modelState.getIndex().allIds().forEach(id -> selectedElements.add(id));
+			if (selectedElements instanceof GModelElementIdSet) {
+				((GModelElementIdSet) selectedElements).addAllIndexed();
+			} else {
+				modelState.getIndex().allIds().forEach(id -> selectedElements.add(id));
+			}
 		} else
 			selectedElements.clear();
 		if (modelSelectionListener != null) {
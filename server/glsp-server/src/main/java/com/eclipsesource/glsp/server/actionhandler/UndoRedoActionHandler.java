@@ -21,12 +21,14 @@ import org.apache.log4j.Logger;
 
 import com.eclipsesource.glsp.api.action.Action;
 import com.eclipsesource.glsp.api.action.kind.RedoAction;
-import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
 import com.eclipsesource.glsp.api.action.kind.UndoAction;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.google.inject.Inject;
 
 public class UndoRedoActionHandler extends AbstractActionHandler {
 	private static final Logger LOG = Logger.getLogger(UndoRedoActionHandler.class);
+	@Inject
+	protected ModelSubmissionHandler submissionHandler;
 
 	@Override
 	public boolean handles(Action action) {
@@ -37,10 +39,12 @@ public class UndoRedoActionHandler extends AbstractActionHandler {
 	public Optional<Action> execute(Action action, GraphicalModelState modelState) {
 		if (action instanceof UndoAction && modelState.canUndo()) {
 			modelState.undo();
-			return Optional.of(new RequestBoundsAction(modelState.getRoot()));
+			submissionHandler.scheduleSubmission(modelState);
+			return Optional.empty();
 		} else if (action instanceof RedoAction && modelState.canRedo()) {
 			modelState.redo();
-			return Optional.of(new RequestBoundsAction(modelState.getRoot()));
+			submissionHandler.scheduleSubmission(modelState);
+			return Optional.empty();
 		}
 
 		LOG.warn("Cannot undo or redo");
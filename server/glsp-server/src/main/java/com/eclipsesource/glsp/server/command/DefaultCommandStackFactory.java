@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import org.eclipse.emf.common.command.CommandStack;
+
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Creates a {@link GModelCommandStack} with the configured limits of the undo
+ * history. To change the limits, bind a subclass that passes other limits to
+ * the constructor.
+ */
+public class DefaultCommandStackFactory implements CommandStackFactory {
+
+	private final int undoLimit;
+	private final long undoMemoryLimit;
+	private final long mergeWindowMillis;
+
+	public DefaultCommandStackFactory() {
+		this(GModelCommandStack.DEFAULT_UNDO_LIMIT, GModelCommandStack.DEFAULT_UNDO_MEMORY_LIMIT,
+				GModelCommandStack.DEFAULT_MERGE_WINDOW_MILLIS);
+	}
+
+	/**
+	 * @param undoLimit         the maximum number of undoable commands, or a
+	 *                          non-positive value for an unbounded history
+	 * @param undoMemoryLimit   the maximum number of bytes retained by the
+	 *                          history, or a non-positive value for no limit
+	 * @param mergeWindowMillis the maximum time between two commands with the
+	 *                          same merge key that are merged
+	 */
+	public DefaultCommandStackFactory(int undoLimit, long undoMemoryLimit, long mergeWindowMillis) {
+		this.undoLimit = undoLimit;
+		this.undoMemoryLimit = undoMemoryLimit;
+		this.mergeWindowMillis = mergeWindowMillis;
+	}
+
+	@Override
+	public CommandStack createCommandStack(GModelRoot modelRoot) {
+		GModelCommandStack commandStack = new GModelCommandStack(undoLimit, undoMemoryLimit);
+		commandStack.setMergeWindowMillis(mergeWindowMillis);
+		return commandStack;
+	}
+
+	public int getUndoLimit() {
+		return undoLimit;
+	}
+
+	public long getUndoMemoryLimit() {
+		return undoMemoryLimit;
+	}
+
+	public long getMergeWindowMillis() {
+		return mergeWindowMillis;
+	}
+
+}
@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Compact record of the changes recorded by a {@link GModelChangeRecorder}.
+ * Instead of snapshots of the affected lists, the record only stores the
+ * positional deltas of list changes and the old and new values of single
+ * valued features, so its size scales with the size of the change and not
+ * with the size of the changed containers. Every delta occupies three slots in
+ * an int array (kind and flags, position, additional position) and four slots
+ * in an object array (object, feature, old value, new value).
+ * <p>
+ * The record can be {@link #undo() undone} by reverting the deltas in reverse
+ * order and {@link #redo() redone} by replaying them in order. It has to be
+ * applied to the model in the state right after the recording or right after
+ * the last undo respectively.
+ * </p>
+ * <p>
+ * Changes of the same single valued feature of the same object are merged
+ * into one delta that keeps the first old value and the last new value, so
+ * that e.g. a drag that sets the position of a node many times only retains
+ * the original and the final position.
+ * </p>
+ */
+public class GModelChangeRecord {
+
+	static final int INTS_PER_DELTA = 3;
+	static final int REFS_PER_DELTA = 4;
+	private static final int INITIAL_CAPACITY = 8;
+
+	private static final int SET = 1;
+	private static final int LIST_SET = 2;
+	private static final int ADD = 3;
+	private static final int ADD_MANY = 4;
+	private static final int REMOVE = 5;
+	private static final int REMOVE_MANY = 6;
+	private static final int MOVE = 7;
+
+	// rough sizes in bytes assuming compressed references
+	private static final int OBJECT_HEADER_SIZE = 16;
+	private static final int REFERENCE_SIZE = 4;
+	private static final int DETACHED_OBJECT_SIZE = 96;
+	private static final int DELTA_SIZE = 4 * INTS_PER_DELTA + REFERENCE_SIZE * REFS_PER_DELTA;
+
+	private static final int KIND_MASK = 0xFF;
+	private static final int WAS_SET = 1 << 8;
+	private static final int IS_UNSET = 1 << 9;
+
+	private int[] codes;
+	private Object[] refs;
+	private int size;
+	private long estimatedSize;
+
+	// built lazily for merging, released once the record is trimmed
+	private Map<FeatureKey, Integer> setDeltas;
+	private Set<Object> removedValues;
+
+	GModelChangeRecord() {
+		codes = new int[INITIAL_CAPACITY * INTS_PER_DELTA];
+		refs = new Object[INITIAL_CAPACITY * REFS_PER_DELTA];
+	}
+
+	/**
+	 * Restores a record from the encoded deltas of a recorded one, e.g. after
+	 * reading it from a {@link GModelUndoJournal}.
+	 */
+	GModelChangeRecord(int[] codes, Object[] refs, long estimatedSize) {
+		this.codes = codes;
+		this.refs = refs;
+		this.size = codes.length / INTS_PER_DELTA;
+		this.estimatedSize = estimatedSize;
+	}
+
+	int[] getCodes() {
+		return codes;
+	}
+
+	Object[] getRefs() {
+		return refs;
+	}
+
+	/**
+	 * Adds the delta described by the given notification. Notifications that
+	 * cannot be reverted, e.g. proxy resolution, are ignored.
+	 */
+	void add(EObject object, EStructuralFeature feature, Notification notification) {
+		switch (notification.getEventType()) {
+		case Notification.SET:
+		case Notification.UNSET: {
+			boolean unset = notification.getEventType() == Notification.UNSET;
+			if (feature.isMany()) {
+				if (notification.getPosition() != Notification.NO_INDEX) {
+					add(LIST_SET, notification.getPosition(), 0, object, feature, notification.getOldValue(),
+							notification.getNewValue());
+				}
+			} else if (!mergeSet(object, feature, notification.getNewValue(), unset)) {
+				int flags = (notification.wasSet() ? WAS_SET : 0) | (unset ? IS_UNSET : 0);
+				add(SET | flags, Notification.NO_INDEX, 0, object, feature, notification.getOldValue(),
+						notification.getNewValue());
+			}
+			break;
+		}
+		case Notification.ADD: {
+			add(ADD, notification.getPosition(), 0, object, feature, null, notification.getNewValue());
+			break;
+		}
+		case Notification.ADD_MANY: {
+			Object[] values = ((List<?>) notification.getNewValue()).toArray();
+			add(ADD_MANY, notification.getPosition(), 0, object, feature, null, values);
+			break;
+		}
+		case Notification.REMOVE: {
+			int position = notification.getPosition() != Notification.NO_INDEX ? notification.getPosition() : 0;
+			add(REMOVE, position, 0, object, feature, notification.getOldValue(), null);
+			break;
+		}
+		case Notification.REMOVE_MANY: {
+			Object[] values = ((List<?>) notification.getOldValue()).toArray();
+			int[] positions = (int[]) notification.getNewValue();
+			add(REMOVE_MANY, Notification.NO_INDEX, 0, object, feature, values,
+					positions != null ? positions.clone() : null);
+			break;
+		}
+		case Notification.MOVE: {
+			add(MOVE, notification.getPosition(), (Integer) notification.getOldValue(), object, feature, null,
+					null);
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Appends the deltas of the given record, which has been recorded right after
+	 * this one, so undoing this record reverts both. The deltas are appended in
+	 * place and changes of single valued features that are already changed by
+	 * this record are merged into the existing deltas.
+	 */
+	void append(GModelChangeRecord other) {
+		for (int delta = 0; delta < other.size; delta++) {
+			int i = delta * INTS_PER_DELTA;
+			int r = delta * REFS_PER_DELTA;
+			int code = other.codes[i];
+			EObject object = (EObject) other.refs[r];
+			EStructuralFeature feature = (EStructuralFeature) other.refs[r + 1];
+			Object newValue = other.refs[r + 3];
+			if ((code & KIND_MASK) == SET) {
+				int merged = findMergeableSet(object, feature, newValue);
+				if (merged >= 0) {
+					Object replaced = refs[merged * REFS_PER_DELTA + 3];
+					setNewValue(merged, newValue, (code & IS_UNSET) != 0);
+					estimatedSize += estimateValueSize(newValue, false) - estimateValueSize(replaced, false);
+					continue;
+				}
+			}
+			add(code, other.codes[i + 1], other.codes[i + 2], object, feature, other.refs[r + 2], newValue);
+			estimatedSize += DELTA_SIZE + estimateDeltaSize(size - 1);
+		}
+	}
+
+	/**
+	 * Merges a change of a single valued feature into the delta that already
+	 * records a change of the same feature of the same object.
+	 */
+	private boolean mergeSet(EObject object, EStructuralFeature feature, Object newValue, boolean unset) {
+		int merged = findMergeableSet(object, feature, newValue);
+		if (merged < 0) {
+			return false;
+		}
+		setNewValue(merged, newValue, unset);
+		return true;
+	}
+
+	/**
+	 * Returns the delta that records a change of the given single valued feature
+	 * of the given object, or <code>-1</code> if there is none or if the change
+	 * cannot be merged. Features with an opposite reference are never merged, as
+	 * their changes are interleaved with the changes of the opposite end. A
+	 * contained value that has been removed from another container within this
+	 * record is not merged either, as replaying its new value earlier would take
+	 * it out of the other container before the recorded removal.
+	 */
+	private int findMergeableSet(EObject object, EStructuralFeature feature, Object newValue) {
+		if (feature.isMany() || feature instanceof EReference && ((EReference) feature).getEOpposite() != null) {
+			return -1;
+		}
+		indexDeltas();
+		if (isContainment(feature) && removedValues.contains(newValue)) {
+			return -1;
+		}
+		Integer delta = setDeltas.get(new FeatureKey(object, feature));
+		return delta != null ? delta : -1;
+	}
+
+	private void setNewValue(int delta, Object newValue, boolean unset) {
+		int code = codes[delta * INTS_PER_DELTA];
+		codes[delta * INTS_PER_DELTA] = unset ? code | IS_UNSET : code & ~IS_UNSET;
+		refs[delta * REFS_PER_DELTA + 3] = newValue;
+	}
+
+	private void indexDeltas() {
+		if (setDeltas == null) {
+			setDeltas = new HashMap<>();
+			removedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (int delta = 0; delta < size; delta++) {
+				indexDelta(delta);
+			}
+		}
+	}
+
+	private void indexDelta(int delta) {
+		int kind = codes[delta * INTS_PER_DELTA] & KIND_MASK;
+		EObject object = (EObject) refs[delta * REFS_PER_DELTA];
+		EStructuralFeature feature = (EStructuralFeature) refs[delta * REFS_PER_DELTA + 1];
+		Object oldValue = refs[delta * REFS_PER_DELTA + 2];
+		if (kind == SET) {
+			setDeltas.put(new FeatureKey(object, feature), delta);
+		}
+		if (isContainment(feature) && oldValue != null) {
+			if (kind == REMOVE_MANY) {
+				removedValues.addAll(Arrays.asList((Object[]) oldValue));
+			} else if (kind == SET || kind == LIST_SET || kind == REMOVE) {
+				removedValues.add(oldValue);
+			}
+		}
+	}
+
+	private static boolean isContainment(EStructuralFeature feature) {
+		return feature instanceof EReference && ((EReference) feature).isContainment();
+	}
+
+	private void add(int code, int position, int oldPosition, EObject object, EStructuralFeature feature,
+			Object oldValue, Object newValue) {
+		if ((size + 1) * INTS_PER_DELTA > codes.length) {
+			int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+			codes = Arrays.copyOf(codes, capacity * INTS_PER_DELTA);
+			refs = Arrays.copyOf(refs, capacity * REFS_PER_DELTA);
+		}
+		int i = size * INTS_PER_DELTA;
+		codes[i] = code;
+		codes[i + 1] = position;
+		codes[i + 2] = oldPosition;
+		int r = size * REFS_PER_DELTA;
+		refs[r] = object;
+		refs[r + 1] = feature;
+		refs[r + 2] = oldValue;
+		refs[r + 3] = newValue;
+		if (setDeltas != null) {
+			indexDelta(size);
+		}
+		size++;
+	}
+
+	/**
+	 * Releases the unused capacity once the recording has ended.
+	 */
+	void trim() {
+		codes = Arrays.copyOf(codes, size * INTS_PER_DELTA);
+		refs = Arrays.copyOf(refs, size * REFS_PER_DELTA);
+		setDeltas = null;
+		removedValues = null;
+		estimatedSize = computeEstimatedSize();
+	}
+
+	/**
+	 * Returns the estimated number of bytes retained by this record, including
+	 * the objects that have been removed from the model and are only kept for
+	 * undo. The estimate is computed once when the recording ends and updated
+	 * when further changes are appended.
+	 * 
+	 * @return the estimated retained size in bytes
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	private long computeEstimatedSize() {
+		long estimate = OBJECT_HEADER_SIZE * 3;
+		for (int delta = 0; delta < size; delta++) {
+			estimate += DELTA_SIZE + estimateDeltaSize(delta);
+		}
+		return estimate;
+	}
+
+	private long estimateDeltaSize(int delta) {
+		return estimateValueSize(refs[delta * REFS_PER_DELTA + 2], true)
+				+ estimateValueSize(refs[delta * REFS_PER_DELTA + 3], false);
+	}
+
+	/**
+	 * Estimates the size of an old or new value. New values are part of the
+	 * model, so only old values that have been removed from the model are
+	 * retained by the record.
+	 */
+	private static long estimateValueSize(Object value, boolean oldValue) {
+		if (value instanceof Object[]) {
+			long estimate = OBJECT_HEADER_SIZE + REFERENCE_SIZE * ((Object[]) value).length;
+			for (Object element : (Object[]) value) {
+				estimate += estimateValueSize(element, oldValue);
+			}
+			return estimate;
+		} else if (value instanceof int[]) {
+			return OBJECT_HEADER_SIZE + 4 * ((int[]) value).length;
+		} else if (value instanceof String) {
+			return OBJECT_HEADER_SIZE * 2 + ((String) value).length();
+		} else if (oldValue && value instanceof EObject && ((EObject) value).eContainer() == null) {
+			// objects that are still part of the model are not retained by the record
+			long estimate = DETACHED_OBJECT_SIZE;
+			for (Iterator<EObject> contents = ((EObject) value).eAllContents(); contents.hasNext(); contents.next()) {
+				estimate += DETACHED_OBJECT_SIZE;
+			}
+			return estimate;
+		}
+		return value != null ? OBJECT_HEADER_SIZE : 0;
+	}
+
+	public int getDeltaCount() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void undo() {
+		for (int delta = size - 1; delta >= 0; delta--) {
+			revert(delta);
+		}
+	}
+
+	public void redo() {
+		for (int delta = 0; delta < size; delta++) {
+			replay(delta);
+		}
+	}
+
+	private void revert(int delta) {
+		int code = codes[delta * INTS_PER_DELTA];
+		int position = codes[delta * INTS_PER_DELTA + 1];
+		EObject object = (EObject) refs[delta * REFS_PER_DELTA];
+		EStructuralFeature feature = (EStructuralFeature) refs[delta * REFS_PER_DELTA + 1];
+		Object oldValue = refs[delta * REFS_PER_DELTA + 2];
+		Object newValue = refs[delta * REFS_PER_DELTA + 3];
+		switch (code & KIND_MASK) {
+		case SET: {
+			if ((code & WAS_SET) == 0 && feature.isUnsettable()) {
+				object.eUnset(feature);
+			} else {
+				object.eSet(feature, oldValue);
+			}
+			break;
+		}
+		case LIST_SET: {
+			list(object, feature).set(position, oldValue);
+			break;
+		}
+		case ADD: {
+			list(object, feature).remove(position);
+			break;
+		}
+		case ADD_MANY: {
+			EList<Object> list = list(object, feature);
+			for (int i = ((Object[]) newValue).length - 1; i >= 0; i--) {
+				list.remove(position + i);
+			}
+			break;
+		}
+		case REMOVE: {
+			list(object, feature).add(position, oldValue);
+			break;
+		}
+		case REMOVE_MANY: {
+			EList<Object> list = list(object, feature);
+			Object[] values = (Object[]) oldValue;
+			int[] positions = (int[]) newValue;
+			if (positions == null) {
+				list.addAll(Arrays.asList(values));
+			} else {
+				for (int i = 0; i < positions.length; i++) {
+					list.add(positions[i], values[i]);
+				}
+			}
+			break;
+		}
+		case MOVE: {
+			list(object, feature).move(codes[delta * INTS_PER_DELTA + 2], position);
+			break;
+		}
+		}
+	}
+
+	private void replay(int delta) {
+		int code = codes[delta * INTS_PER_DELTA];
+		int position = codes[delta * INTS_PER_DELTA + 1];
+		EObject object = (EObject) refs[delta * REFS_PER_DELTA];
+		EStructuralFeature feature = (EStructuralFeature) refs[delta * REFS_PER_DELTA + 1];
+		Object oldValue = refs[delta * REFS_PER_DELTA + 2];
+		Object newValue = refs[delta * REFS_PER_DELTA + 3];
+		switch (code & KIND_MASK) {
+		case SET: {
+			if ((code & IS_UNSET) != 0) {
+				object.eUnset(feature);
+			} else {
+				object.eSet(feature, newValue);
+			}
+			break;
+		}
+		case LIST_SET: {
+			list(object, feature).set(position, newValue);
+			break;
+		}
+		case ADD: {
+			list(object, feature).add(position, newValue);
+			break;
+		}
+		case ADD_MANY: {
+			list(object, feature).addAll(position, Arrays.asList((Object[]) newValue));
+			break;
+		}
+		case REMOVE: {
+			list(object, feature).remove(position);
+			break;
+		}
+		case REMOVE_MANY: {
+			EList<Object> list = list(object, feature);
+			int[] positions = (int[]) newValue;
+			if (positions == null) {
+				list.clear();
+			} else {
+				for (int i = positions.length - 1; i >= 0; i--) {
+					list.remove(positions[i]);
+				}
+			}
+			break;
+		}
+		case MOVE: {
+			list(object, feature).move(position, codes[delta * INTS_PER_DELTA + 2]);
+			break;
+		}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static EList<Object> list(EObject object, EStructuralFeature feature) {
+		return (EList<Object>) object.eGet(feature);
+	}
+
+	private static final class FeatureKey {
+		private final EObject object;
+		private final EStructuralFeature feature;
+
+		FeatureKey(EObject object, EStructuralFeature feature) {
+			this.object = object;
+			this.feature = feature;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(object) + System.identityHashCode(feature);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof FeatureKey && ((FeatureKey) obj).object == object
+					&& ((FeatureKey) obj).feature == feature;
+		}
+	}
+
+}
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Converts a {@link GModelChangeRecord} from and to bytes for the
+ * {@link GModelUndoJournal}.
+ * <p>
+ * Objects that are part of the model are written by reference: model elements
+ * by their id and nested objects by the path from their containing element.
+ * They are resolved again when the record is read, which has to happen right
+ * before the record is undone, i.e. when the model is in the same state as
+ * right after the recording. Objects that are detached from the model, e.g.
+ * removed elements that are only kept for undo, are written by value in EMF's
+ * binary format. Only the root of a detached subtree is written by value,
+ * objects within it are written by their path from the root, so they are
+ * restored as part of the same copy. An object that occurs several times in a
+ * record is written once and referenced afterwards, so the deltas of a
+ * restored record still refer to the same objects.
+ * </p>
+ */
+public class GModelChangeRecordSerializer {
+
+	private static final byte NULL = 0;
+	private static final byte ELEMENT = 1;
+	private static final byte NESTED = 2;
+	private static final byte DETACHED = 3;
+	private static final byte DATA = 4;
+	private static final byte OBJECT_ARRAY = 5;
+	private static final byte INT_ARRAY = 6;
+	private static final byte FEATURE = 7;
+	private static final byte BACK_REFERENCE = 8;
+
+	private final GModelRoot modelRoot;
+
+	public GModelChangeRecordSerializer(GModelRoot modelRoot) {
+		this.modelRoot = modelRoot;
+	}
+
+	public byte[] write(GModelChangeRecord record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			Map<EObject, Integer> written = new IdentityHashMap<>();
+			int[] codes = record.getCodes();
+			Object[] refs = record.getRefs();
+			out.writeLong(record.getEstimatedSize());
+			out.writeInt(record.getDeltaCount());
+			for (int delta = 0; delta < record.getDeltaCount(); delta++) {
+				for (int i = 0; i < GModelChangeRecord.INTS_PER_DELTA; i++) {
+					out.writeInt(codes[delta * GModelChangeRecord.INTS_PER_DELTA + i]);
+				}
+				int r = delta * GModelChangeRecord.REFS_PER_DELTA;
+				EStructuralFeature feature = (EStructuralFeature) refs[r + 1];
+				writeObject(out, (EObject) refs[r], written);
+				writeFeature(out, feature);
+				writeValue(out, refs[r + 2], feature, written);
+				writeValue(out, refs[r + 3], feature, written);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	public GModelChangeRecord read(byte[] data) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			List<EObject> read = new ArrayList<>();
+			long estimatedSize = in.readLong();
+			int size = in.readInt();
+			int[] codes = new int[size * GModelChangeRecord.INTS_PER_DELTA];
+			Object[] refs = new Object[size * GModelChangeRecord.REFS_PER_DELTA];
+			for (int delta = 0; delta < size; delta++) {
+				for (int i = 0; i < GModelChangeRecord.INTS_PER_DELTA; i++) {
+					codes[delta * GModelChangeRecord.INTS_PER_DELTA + i] = in.readInt();
+				}
+				int r = delta * GModelChangeRecord.REFS_PER_DELTA;
+				refs[r] = readValue(in, null, read);
+				EStructuralFeature feature = (EStructuralFeature) readValue(in, null, read);
+				refs[r + 1] = feature;
+				refs[r + 2] = readValue(in, feature, read);
+				refs[r + 3] = readValue(in, feature, read);
+			}
+			return new GModelChangeRecord(codes, refs, estimatedSize);
+		}
+	}
+
+	protected void writeValue(DataOutputStream out, Object value, EStructuralFeature feature,
+			Map<EObject, Integer> written) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof EObject) {
+			writeObject(out, (EObject) value, written);
+		} else if (value instanceof Object[]) {
+			Object[] values = (Object[]) value;
+			out.writeByte(OBJECT_ARRAY);
+			out.writeInt(values.length);
+			for (Object element : values) {
+				writeValue(out, element, feature, written);
+			}
+		} else if (value instanceof int[]) {
+			int[] values = (int[]) value;
+			out.writeByte(INT_ARRAY);
+			out.writeInt(values.length);
+			for (int element : values) {
+				out.writeInt(element);
+			}
+		} else if (feature instanceof EAttribute) {
+			out.writeByte(DATA);
+			out.writeUTF(EcoreUtil.convertToString(((EAttribute) feature).getEAttributeType(), value));
+		} else {
+			throw new IOException("Cannot write value of type " + value.getClass().getName());
+		}
+	}
+
+	protected void writeObject(DataOutputStream out, EObject object, Map<EObject, Integer> written)
+			throws IOException {
+		if (object == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		Integer reference = written.get(object);
+		if (reference != null) {
+			out.writeByte(BACK_REFERENCE);
+			out.writeInt(reference);
+			return;
+		}
+		String id = object instanceof GModelElement ? ((GModelElement) object).getId() : null;
+		boolean attached = id != null && GModelIndex.get(modelRoot).get(id).orElse(null) == object;
+		// elements within a detached subtree are written by their path from its root
+		if (attached || id != null && object.eContainer() == null) {
+			out.writeByte(ELEMENT);
+			out.writeUTF(id);
+			out.writeBoolean(attached);
+			if (!attached) {
+				writeBytes(out, toBytes(object));
+			}
+		} else if (object.eContainer() != null) {
+			EStructuralFeature containment = object.eContainmentFeature();
+			out.writeByte(NESTED);
+			writeObject(out, object.eContainer(), written);
+			writeFeature(out, containment);
+			out.writeInt(containment.isMany() ? ((List<?>) object.eContainer().eGet(containment)).indexOf(object) : -1);
+		} else {
+			out.writeByte(DETACHED);
+			writeBytes(out, toBytes(object));
+		}
+		written.put(object, written.size());
+	}
+
+	protected void writeFeature(DataOutputStream out, EStructuralFeature feature) throws IOException {
+		EClass eClass = feature.getEContainingClass();
+		out.writeByte(FEATURE);
+		out.writeUTF(eClass.getEPackage().getNsURI());
+		out.writeUTF(eClass.getName());
+		out.writeUTF(feature.getName());
+	}
+
+	protected Object readValue(DataInputStream in, EStructuralFeature feature, List<EObject> read)
+			throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case NULL:
+			return null;
+		case ELEMENT: {
+			String id = in.readUTF();
+			boolean attached = in.readBoolean();
+			// elements that have been removed after the recording are attached again
+			// once the subsequent commands have been undone
+			EObject element = GModelIndex.get(modelRoot).get(id).orElse(null);
+			if (!attached) {
+				byte[] data = readBytes(in);
+				if (element == null) {
+					element = fromBytes(data);
+				}
+			}
+			if (element == null) {
+				throw new IOException("Model element not found: " + id);
+			}
+			read.add(element);
+			return element;
+		}
+		case NESTED: {
+			EObject container = (EObject) readValue(in, null, read);
+			EStructuralFeature containment = (EStructuralFeature) readValue(in, null, read);
+			int index = in.readInt();
+			Object value = container.eGet(containment);
+			EObject object = (EObject) (index >= 0 ? ((List<?>) value).get(index) : value);
+			read.add(object);
+			return object;
+		}
+		case DETACHED: {
+			EObject object = fromBytes(readBytes(in));
+			read.add(object);
+			return object;
+		}
+		case BACK_REFERENCE:
+			return read.get(in.readInt());
+		case DATA:
+			return EcoreUtil.createFromString(((EAttribute) feature).getEAttributeType(), in.readUTF());
+		case OBJECT_ARRAY: {
+			Object[] values = new Object[in.readInt()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = readValue(in, feature, read);
+			}
+			return values;
+		}
+		case INT_ARRAY: {
+			int[] values = new int[in.readInt()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readInt();
+			}
+			return values;
+		}
+		case FEATURE: {
+			String nsURI = in.readUTF();
+			String className = in.readUTF();
+			String featureName = in.readUTF();
+			EPackage ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+			EClass eClass = ePackage != null ? (EClass) ePackage.getEClassifier(className) : null;
+			if (eClass == null) {
+				throw new IOException("Unknown class " + nsURI + "#" + className);
+			}
+			return eClass.getEStructuralFeature(featureName);
+		}
+		default:
+			throw new IOException("Unknown tag " + tag);
+		}
+	}
+
+	private static byte[] toBytes(EObject object) throws IOException {
+		Resource resource = new BinaryResourceImpl();
+		resource.getContents().add(EcoreUtil.copy(object));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		resource.save(bytes, null);
+		return bytes.toByteArray();
+	}
+
+	private static EObject fromBytes(byte[] data) throws IOException {
+		Resource resource = new BinaryResourceImpl();
+		resource.load(new ByteArrayInputStream(data), null);
+		EObject object = resource.getContents().get(0);
+		resource.getContents().clear();
+		return object;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+		out.writeInt(data.length);
+		out.write(data);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+		return data;
+	}
+
+}
@@ -15,26 +15,32 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.server.command;
 
-import java.util.Collection;
-import java.util.List;
-
 import org.eclipse.emf.common.notify.Notification;
-import org.eclipse.emf.common.util.BasicEList;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
-import org.eclipse.emf.ecore.change.FeatureChange;
-import org.eclipse.emf.ecore.change.util.BasicChangeRecorder;
-import org.eclipse.emf.ecore.util.InternalEList;
 
 import com.eclipsesource.glsp.graph.GModelChangeNotifier;
 import com.eclipsesource.glsp.graph.GModelListener;
 import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.graph.GraphPackage;
 
-public class GModelChangeRecorder extends BasicChangeRecorder implements GModelListener {
+/**
+ * Records the changes of a model into a compact {@link GModelChangeRecord}.
+ * In contrast to EMF's ChangeRecorder, neither an adapter is added to new
+ * objects, as this is done already by the GModelObserver, nor are the affected
+ * lists copied on their first change. Only positional deltas and old values are
+ * recorded.
+ * <p>
+ * A recorder stays registered at the model until it is disposed, so it is
+ * meant to be long-lived and can be armed with {@link #beginRecording()} and
+ * disarmed with {@link #endRecording()} cheaply for every operation.
+ * </p>
+ */
+public class GModelChangeRecorder implements GModelListener {
 
 	private GModelRoot modelRoot;
+	private GModelChangeRecord changeRecord;
 
 	public GModelChangeRecorder(GModelRoot root) {
 		this.modelRoot = root;
@@ -43,136 +49,65 @@ public class GModelChangeRecorder extends BasicChangeRecorder implements GModelL
 
 	public void dispose() {
 		GModelChangeNotifier.get(modelRoot).removeListener(this);
+		changeRecord = null;
+	}
+
+	public GModelRoot getModelRoot() {
+		return modelRoot;
 	}
 
 	public GModelChangeRecorder beginRecording() {
-		if (changeDescription == null) {
-			changeDescription = createChangeDescription();
+		if (changeRecord == null) {
+			changeRecord = new GModelChangeRecord();
 		}
-		setChangeDescription(changeDescription);
-		setRecording(true);
 		return this;
 	}
 
-	/*
-	 * This method is based on EMF's ChangeRecorder.notifyChanged(Notification)
+	/**
+	 * Disarms the recorder and returns the changes recorded since
+	 * {@link #beginRecording()}. The returned record is not modified by the
+	 * recorder afterwards.
+	 * 
+	 * @return the recorded changes or <code>null</code> if the recorder was not
+	 *         recording
 	 */
-	@Override
-	public void notifyChanged(Notification notification) {
-		Object notifier = notification.getNotifier();
-		if (notifier instanceof EObject) {
-			Object feature = notification.getFeature();
-			if (feature instanceof EReference) {
-				EReference eReference = (EReference) feature;
-				handleFeature(eReference, eReference.isContainment() ? eReference : null, notification,
-						(EObject) notifier);
-			} else if (feature != null) {
-				handleFeature((EStructuralFeature) feature, null, notification, (EObject) notifier);
-			}
+	public GModelChangeRecord endRecording() {
+		GModelChangeRecord endedRecord = changeRecord;
+		changeRecord = null;
+		if (endedRecord != null) {
+			endedRecord.trim();
 		}
+		return endedRecord;
 	}
 
-	/*
-	 * This method is based on EMF's
-	 * ChangeRecorder.handleFeature(EStructuralFeature, Reference, Notification,
-	 * EObject). In contrast to the implementation in EMF, we don't add an adapter
-	 * for each new object, as this is done already in GModelChangeNotifier. Thus,
-	 * we avoid having to create a new EContentAdapter (expensive!) for each
-	 * recording.
-	 */
-	protected void handleFeature(EStructuralFeature feature, EReference containment, Notification notification,
-			EObject eObject) {
-		List<FeatureChange> changes = null;
-		FeatureChange change = null;
-		if (shouldRecord(feature, eObject)) {
-			changes = getFeatureChanges(eObject);
-			change = getFeatureChange(changes, feature);
-		}
+	public boolean isRecording() {
+		return changeRecord != null;
+	}
 
-		switch (notification.getEventType()) {
-		case Notification.RESOLVE:
-		case Notification.SET:
-		case Notification.UNSET: {
-			if (change == null && changes != null) {
-				if (feature.isMany()) {
-					List<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-					int index = notification.getPosition();
-					if (index != Notification.NO_INDEX) {
-						oldValue.set(index, notification.getOldValue());
-					}
-					change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				} else {
-					Object oldValue = notification.getOldValue();
-					change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				}
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
-		}
-		case Notification.ADD: {
-			if (change == null && changes != null) {
-				List<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-				oldValue.remove(notification.getPosition());
-				change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
-		}
-		case Notification.ADD_MANY: {
-			if (change == null && changes != null) {
-				List<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-				int position = notification.getPosition();
-				for (int i = ((Collection<?>) notification.getNewValue()).size(); --i >= 0;) {
-					oldValue.remove(position);
-				}
-				change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
-		}
-		case Notification.REMOVE: {
-			if (change == null && changes != null) {
-				List<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-				int position = notification.getPosition();
-				if (position == Notification.NO_INDEX) {
-					position = 0;
-				}
-				oldValue.add(position, notification.getOldValue());
-				change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
-		}
-		case Notification.REMOVE_MANY: {
-			if (change == null && changes != null) {
-				@SuppressWarnings("unchecked")
-				List<Object> removedValues = (List<Object>) notification.getOldValue();
-				List<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-				int[] positions = (int[]) notification.getNewValue();
-				if (positions == null) {
-					oldValue.addAll(removedValues);
-				} else {
-					for (int i = 0; i < positions.length; ++i) {
-						oldValue.add(positions[i], removedValues.get(i));
-					}
-				}
-				change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
+	@Override
+	public void notifyChanged(Notification notification) {
+		if (changeRecord == null || !(notification.getNotifier() instanceof EObject)
+				|| !(notification.getFeature() instanceof EStructuralFeature)) {
+			return;
 		}
-		case Notification.MOVE: {
-			if (change == null && changes != null) {
-				EList<Object> oldValue = new BasicEList<Object>((Collection<?>) eObject.eGet(feature));
-				int position = notification.getPosition();
-				int oldPosition = (Integer) notification.getOldValue();
-				oldValue.move(oldPosition, position);
-				change = createFeatureChange(eObject, feature, oldValue, notification.wasSet());
-				((InternalEList<FeatureChange>) changes).addUnique(change);
-			}
-			break;
+		EStructuralFeature feature = (EStructuralFeature) notification.getFeature();
+		if (shouldRecord(feature)) {
+			changeRecord.add((EObject) notification.getNotifier(), feature, notification);
 		}
+	}
+
+	/**
+	 * Transient and derived features are not recorded, as well as container
+	 * references, which are restored together with the corresponding
+	 * containment. The revision of the root is maintained by the model state and
+	 * only ever increases, so it is not reverted by undo either.
+	 */
+	protected boolean shouldRecord(EStructuralFeature feature) {
+		if (feature.isTransient() || feature.isDerived() || !feature.isChangeable()
+				|| feature == GraphPackage.Literals.GMODEL_ROOT__REVISION) {
+			return false;
 		}
+		return !(feature instanceof EReference) || !((EReference) feature).isContainer();
 	}
 
 }
@@ -2,11 +2,213 @@ package com.eclipsesource.glsp.server.command;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.command.BasicCommandStack;
+import org.eclipse.emf.common.command.Command;
 
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Command stack with an undo history that is bounded by the number of
+ * commands and by the estimated number of bytes retained by their recorded
+ * changes. If one of the limits is exceeded after executing a command, the
+ * oldest commands are evicted from the history. The most recent command is
+ * always kept, so it can be undone even if it exceeds the memory limit on its
+ * own. A non-positive limit disables the respective bound.
+ * <p>
+ * Successive {@link GModelRecordingCommand}s that belong to the same client
+ * gesture, or that have the same merge key and are executed within the merge
+ * window, are merged into one undoable command, so that e.g. undoing a drag
+ * does not step through every intermediate position.
+ * </p>
+ * <p>
+ * The {@link GModelRecordingCommand}s executed on this stack share one
+ * long-lived {@link GModelChangeRecorder} per model.
+ * </p>
+ */
 public class GModelCommandStack extends BasicCommandStack {
-	
+
+	public static final int DEFAULT_UNDO_LIMIT = 500;
+	public static final long DEFAULT_UNDO_MEMORY_LIMIT = 64L * 1024 * 1024;
+	public static final long DEFAULT_MERGE_WINDOW_MILLIS = 500;
+
 	private static Logger LOG = Logger.getLogger(GModelCommandStack.class);
 
+	private int undoLimit;
+	private long undoMemoryLimit;
+	private long mergeWindowMillis = DEFAULT_MERGE_WINDOW_MILLIS;
+	private Command executedCommand;
+	private GModelChangeRecorder changeRecorder;
+
+	public GModelCommandStack() {
+		this(DEFAULT_UNDO_LIMIT, DEFAULT_UNDO_MEMORY_LIMIT);
+	}
+
+	public GModelCommandStack(int undoLimit, long undoMemoryLimit) {
+		this.undoLimit = undoLimit;
+		this.undoMemoryLimit = undoMemoryLimit;
+	}
+
+	@Override
+	public void execute(Command command) {
+		if (command instanceof GModelRecordingCommand) {
+			GModelRecordingCommand recordingCommand = (GModelRecordingCommand) command;
+			recordingCommand.useRecorder(getChangeRecorder(recordingCommand.getModelRoot()));
+		}
+		executedCommand = command;
+		try {
+			super.execute(command);
+		} finally {
+			executedCommand = null;
+		}
+	}
+
+	/**
+	 * Merges and evicts commands before the listeners are notified about an
+	 * executed command, so that they are notified once and only see the final
+	 * state of the history.
+	 */
+	@Override
+	protected void notifyListeners() {
+		if (executedCommand != null) {
+			Command command = executedCommand;
+			executedCommand = null;
+			mergeWithPrevious(command);
+			enforceLimits();
+		}
+		super.notifyListeners();
+	}
+
+	/**
+	 * Returns the recorder that is shared by the commands executed on the given
+	 * model.
+	 */
+	protected GModelChangeRecorder getChangeRecorder(GModelRoot modelRoot) {
+		if (changeRecorder == null || changeRecorder.getModelRoot() != modelRoot) {
+			disposeChangeRecorder();
+			changeRecorder = new GModelChangeRecorder(modelRoot);
+		}
+		return changeRecorder;
+	}
+
+	protected void disposeChangeRecorder() {
+		if (changeRecorder != null) {
+			changeRecorder.dispose();
+			changeRecorder = null;
+		}
+	}
+
+	@Override
+	public void flush() {
+		super.flush();
+		disposeChangeRecorder();
+	}
+
+	/**
+	 * Merges the given command into the previous command of the history if
+	 * possible. Commands are not merged across the point at which the model was
+	 * last saved.
+	 */
+	protected void mergeWithPrevious(Command command) {
+		if (top < 1 || commandList.get(top) != command || saveIndex == top - 1
+				|| !(command instanceof GModelRecordingCommand)
+				|| !(commandList.get(top - 1) instanceof GModelRecordingCommand)) {
+			return;
+		}
+		GModelRecordingCommand previous = (GModelRecordingCommand) commandList.get(top - 1);
+		if (previous.canMerge((GModelRecordingCommand) command, mergeWindowMillis)) {
+			previous.merge((GModelRecordingCommand) command);
+			commandList.remove(top);
+			top--;
+			mostRecentCommand = previous;
+			command.dispose();
+		}
+	}
+
+	/**
+	 * Evicts the oldest commands until the history fits into the configured
+	 * limits again.
+	 */
+	protected void enforceLimits() {
+		long footprint = getFootprint();
+		int evicted = 0;
+		while (top > 0 && (exceedsUndoLimit() || exceedsUndoMemoryLimit(footprint))) {
+			Command oldest = commandList.remove(0);
+			footprint -= estimateSize(oldest);
+			oldest.dispose();
+			top--;
+			saveIndex--;
+			evicted++;
+		}
+		if (evicted > 0) {
+			LOG.debug("Evicted " + evicted + " command(s) from the undo history, " + getUndoCount()
+					+ " command(s) with ~" + footprint + " bytes remaining");
+		}
+	}
+
+	private boolean exceedsUndoLimit() {
+		return undoLimit > 0 && top + 1 > undoLimit;
+	}
+
+	private boolean exceedsUndoMemoryLimit(long footprint) {
+		return undoMemoryLimit > 0 && footprint > undoMemoryLimit;
+	}
+
+	/**
+	 * Returns the estimated number of bytes retained by all commands of the
+	 * history, including the commands that can be redone.
+	 * 
+	 * @return the estimated footprint in bytes
+	 */
+	public long getFootprint() {
+		long footprint = 0;
+		for (Command command : commandList) {
+			footprint += estimateSize(command);
+		}
+		return footprint;
+	}
+
+	/**
+	 * Returns the number of commands that can be undone.
+	 */
+	public int getUndoCount() {
+		return top + 1;
+	}
+
+	protected long estimateSize(Command command) {
+		return command instanceof GModelRecordingCommand ? ((GModelRecordingCommand) command).getEstimatedSize()
+				: 0;
+	}
+
+	public int getUndoLimit() {
+		return undoLimit;
+	}
+
+	public void setUndoLimit(int undoLimit) {
+		this.undoLimit = undoLimit;
+		enforceLimits();
+	}
+
+	public long getUndoMemoryLimit() {
+		return undoMemoryLimit;
+	}
+
+	public void setUndoMemoryLimit(long undoMemoryLimit) {
+		this.undoMemoryLimit = undoMemoryLimit;
+		enforceLimits();
+	}
+
+	public long getMergeWindowMillis() {
+		return mergeWindowMillis;
+	}
+
+	/**
+	 * Sets the maximum time between the executions of two commands with the same
+	 * merge key that are merged. A negative window only merges commands of the
+	 * same client gesture.
+	 */
+	public void setMergeWindowMillis(long mergeWindowMillis) {
+		this.mergeWindowMillis = mergeWindowMillis;
+	}
+
 	@Override
 	protected void handleError(Exception exception) {
 		LOG.error("Error while executing command", exception);
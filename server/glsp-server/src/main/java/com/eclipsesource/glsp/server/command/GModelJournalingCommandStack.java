@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.command.Command;
+
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Command stack that keeps only the most recent commands of the undo history
+ * on the heap. The recorded changes of every command are appended to a
+ * {@link GModelUndoJournal} on disk when it is executed and released from the
+ * heap once the command is no longer among the most recent ones. They are read
+ * back when the command is undone, so the heap used by the history stays
+ * constant no matter how long the session runs. Likewise, a command is
+ * journaled again when it is undone, and only the commands that are redone
+ * next stay on the heap. By default, the history is not bounded by the number
+ * of commands.
+ * <p>
+ * The journal file is created with the first command and deleted when the
+ * stack is {@link #close() closed}.
+ * </p>
+ */
+public class GModelJournalingCommandStack extends GModelCommandStack implements Closeable {
+
+	public static final int DEFAULT_COMMANDS_IN_MEMORY = 16;
+
+	private static Logger LOG = Logger.getLogger(GModelJournalingCommandStack.class);
+
+	private final GModelRoot modelRoot;
+	private int commandsInMemory;
+	private GModelUndoJournal journal;
+
+	public GModelJournalingCommandStack(GModelRoot modelRoot) {
+		this(modelRoot, DEFAULT_COMMANDS_IN_MEMORY, 0, DEFAULT_UNDO_MEMORY_LIMIT);
+	}
+
+	/**
+	 * @param modelRoot        the model the commands are executed on
+	 * @param commandsInMemory the number of most recent undoable commands whose
+	 *                         changes are kept on the heap, at least one
+	 * @param undoLimit        the maximum number of undoable commands, or a
+	 *                         non-positive value for an unbounded history
+	 * @param undoMemoryLimit  the maximum number of bytes retained on the heap by
+	 *                         the history
+	 */
+	public GModelJournalingCommandStack(GModelRoot modelRoot, int commandsInMemory, int undoLimit,
+			long undoMemoryLimit) {
+		super(undoLimit, undoMemoryLimit);
+		this.modelRoot = modelRoot;
+		this.commandsInMemory = Math.max(1, commandsInMemory);
+	}
+
+	@Override
+	public void execute(Command command) {
+		super.execute(command);
+		Command mostRecent = top >= 0 ? commandList.get(top) : null;
+		if (mostRecent instanceof GModelRecordingCommand && mostRecent == getMostRecentCommand()) {
+			// the changes refer to the model by ids, which are only valid right after the execution
+			try {
+				((GModelRecordingCommand) mostRecent).writeTo(getJournal());
+			} catch (IOException | RuntimeException e) {
+				LOG.warn("Could not write changes of '" + mostRecent.getLabel() + "' to the undo journal", e);
+			}
+		}
+		spillCommands();
+	}
+
+	@Override
+	public void undo() {
+		super.undo();
+		Command undone = top + 1 < commandList.size() ? commandList.get(top + 1) : null;
+		if (undone instanceof GModelRecordingCommand) {
+			// the changes of undone commands can only be journaled right after the undo
+			try {
+				((GModelRecordingCommand) undone).writeTo(getJournal());
+			} catch (IOException | RuntimeException e) {
+				LOG.warn("Could not write changes of undone '" + undone.getLabel() + "' to the undo journal", e);
+			}
+		}
+		spillCommands();
+	}
+
+	@Override
+	public void redo() {
+		super.redo();
+		spillCommands();
+	}
+
+	/**
+	 * Releases the changes of all commands except the ones that are undone or
+	 * redone next from the heap. Their changes have been written to the journal
+	 * when they were executed or undone.
+	 */
+	protected void spillCommands() {
+		for (int i = top - commandsInMemory; i >= 0; i--) {
+			if (!spill(commandList.get(i))) {
+				break;
+			}
+		}
+		for (int i = top + commandsInMemory + 1; i < commandList.size(); i++) {
+			if (!spill(commandList.get(i))) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Releases the changes of the given command.
+	 * 
+	 * @return <code>false</code> if the changes have already been released by
+	 *         previous calls, as all commands further away from the top have
+	 *         been released as well
+	 */
+	private static boolean spill(Command command) {
+		if (command instanceof GModelRecordingCommand) {
+			GModelRecordingCommand recordingCommand = (GModelRecordingCommand) command;
+			if (recordingCommand.isSpilled()) {
+				return false;
+			}
+			recordingCommand.spill();
+		}
+		return true;
+	}
+
+	protected GModelUndoJournal getJournal() {
+		if (journal == null) {
+			journal = new GModelUndoJournal(modelRoot);
+			LOG.debug("Created undo journal " + journal.getFile());
+		}
+		return journal;
+	}
+
+	/**
+	 * Returns the number of bytes currently occupied by the journal file.
+	 */
+	public long getJournalSize() {
+		return journal != null ? journal.getSize() : 0;
+	}
+
+	public int getCommandsInMemory() {
+		return commandsInMemory;
+	}
+
+	public void setCommandsInMemory(int commandsInMemory) {
+		this.commandsInMemory = Math.max(1, commandsInMemory);
+		spillCommands();
+	}
+
+	@Override
+	public void flush() {
+		super.flush();
+		if (journal != null) {
+			journal.clear();
+		}
+	}
+
+	@Override
+	public void close() {
+		super.flush();
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+
+}
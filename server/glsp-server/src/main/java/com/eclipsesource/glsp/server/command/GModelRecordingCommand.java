@@ -15,16 +15,28 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.server.command;
 
+import java.io.IOException;
+
 import org.eclipse.emf.common.command.AbstractCommand;
-import org.eclipse.emf.ecore.change.ChangeDescription;
 
+import com.eclipsesource.glsp.api.jsonrpc.GLSPServerException;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
 import com.eclipsesource.glsp.graph.GModelRoot;
 
 public class GModelRecordingCommand extends AbstractCommand {
 
 	private GModelRoot modelRoot;
+	private GModelChangeRecorder recorder;
 	private Runnable runnable;
-	private ChangeDescription change;
+	private GModelChangeRecord change;
+	private String mergeKey;
+	private String gestureId;
+	private long executionTime;
+	private GModelUndoJournal journal;
+	// the journaled changes, valid right after the execution and right after the undo respectively
+	private GModelUndoJournal.Entry journalEntry;
+	private GModelUndoJournal.Entry undoneJournalEntry;
+	private boolean undone;
 
 	public GModelRecordingCommand(GModelRoot root, String label, Runnable runnable) {
 		super(label);
@@ -32,45 +44,205 @@ public class GModelRecordingCommand extends AbstractCommand {
 		this.runnable = runnable;
 	}
 
+	/**
+	 * Creates a command that records its changes with the given long-lived
+	 * recorder instead of registering a new recorder on every execution.
+	 */
+	public GModelRecordingCommand(GModelChangeRecorder recorder, String label, Runnable runnable) {
+		this(recorder.getModelRoot(), label, runnable);
+		this.recorder = recorder;
+	}
+
+	public GModelRoot getModelRoot() {
+		return modelRoot;
+	}
+
+	/**
+	 * Records the changes of this command with the given long-lived recorder,
+	 * unless a recorder has been passed on creation.
+	 */
+	void useRecorder(GModelChangeRecorder recorder) {
+		if (this.recorder == null && recorder.getModelRoot() == modelRoot) {
+			this.recorder = recorder;
+		}
+	}
+
 	protected boolean prepare() {
-		return change == null;
+		return change == null && journalEntry == null;
 	}
 
 	@Override
 	public void execute() {
-		GModelChangeRecorder recorder = new GModelChangeRecorder(modelRoot).beginRecording();
+		// fall back to a dedicated recorder for commands executed by another command
+		GModelChangeRecorder activeRecorder = recorder != null && !recorder.isRecording() ? recorder
+				: new GModelChangeRecorder(modelRoot);
+		activeRecorder.beginRecording();
 		try {
-			runnable.run();
+			GModelChangeNotifier.get(modelRoot).runInTransaction(runnable);
 		} finally {
-			change = recorder.endRecording();
-			recorder.dispose();
+			change = activeRecorder.endRecording();
+			executionTime = System.currentTimeMillis();
+			if (activeRecorder != recorder) {
+				activeRecorder.dispose();
+			}
 			runnable = null;
 		}
 	}
 
+	/**
+	 * Sets the key under which this command may be merged with the previous
+	 * command if both have been executed within the merge window of the command
+	 * stack, e.g. the kind of operation and the ids of the affected elements.
+	 */
+	public void setMergeKey(String mergeKey) {
+		this.mergeKey = mergeKey;
+	}
+
+	public String getMergeKey() {
+		return mergeKey;
+	}
+
+	/**
+	 * Sets the id of the client gesture this command belongs to. Commands of the
+	 * same gesture are merged regardless of the time between them.
+	 */
+	public void setGestureId(String gestureId) {
+		this.gestureId = gestureId;
+	}
+
+	public String getGestureId() {
+		return gestureId;
+	}
+
+	/**
+	 * Returns whether the given command, which has been executed right after this
+	 * one, can be merged into this command.
+	 * 
+	 * @param next              the subsequent command
+	 * @param mergeWindowMillis the maximum time between the executions of
+	 *                          commands with the same merge key
+	 * @return <code>true</code> if the commands can be merged
+	 */
+	public boolean canMerge(GModelRecordingCommand next, long mergeWindowMillis) {
+		if (change == null || next.change == null || modelRoot != next.modelRoot) {
+			return false;
+		}
+		if (gestureId != null && gestureId.equals(next.gestureId)) {
+			return true;
+		}
+		return mergeKey != null && mergeKey.equals(next.mergeKey)
+				&& next.executionTime - executionTime <= mergeWindowMillis;
+	}
+
+	/**
+	 * Merges the changes of the given subsequent command into this command, so
+	 * that both are undone and redone as one step. Further commands are merged
+	 * based on the merge key and gesture of the most recent command.
+	 */
+	public void merge(GModelRecordingCommand next) {
+		change.append(next.change);
+		journalEntry = null;
+		undoneJournalEntry = null;
+		mergeKey = next.mergeKey;
+		gestureId = next.gestureId;
+		executionTime = next.executionTime;
+	}
+
+	/**
+	 * Returns the estimated number of bytes retained by the recorded changes of
+	 * this command.
+	 */
+	public long getEstimatedSize() {
+		return change != null ? change.getEstimatedSize() : 0;
+	}
+
+	/**
+	 * Writes the recorded changes of this command to the given journal unless
+	 * they have already been written for the current state. The changes refer
+	 * to the objects of the model by their ids, so this has to be done in the
+	 * state right after the execution or the undo of this command. A command
+	 * that has been undone is journaled separately, so that it can be redone
+	 * after its changes have been released.
+	 * 
+	 * @throws IOException if the changes could not be written
+	 */
+	void writeTo(GModelUndoJournal journal) throws IOException {
+		if (change == null) {
+			return;
+		}
+		if (this.journal != journal) {
+			journalEntry = null;
+			undoneJournalEntry = null;
+			this.journal = journal;
+		}
+		if (undone && undoneJournalEntry == null) {
+			undoneJournalEntry = journal.append(change);
+		} else if (!undone && journalEntry == null) {
+			journalEntry = journal.append(change);
+		}
+	}
+
+	/**
+	 * Releases the recorded changes from the heap if they have been written to
+	 * a journal for the current state. They are read back when the command is
+	 * undone or redone.
+	 * 
+	 * @return <code>true</code> if the changes have been released
+	 */
+	boolean spill() {
+		if (change == null || getJournalEntry() == null) {
+			return false;
+		}
+		change = null;
+		return true;
+	}
+
+	boolean isSpilled() {
+		return change == null && getJournalEntry() != null;
+	}
+
+	private GModelUndoJournal.Entry getJournalEntry() {
+		return undone ? undoneJournalEntry : journalEntry;
+	}
+
+	private GModelChangeRecord getChange() {
+		GModelUndoJournal.Entry entry = getJournalEntry();
+		if (change == null && entry != null) {
+			try {
+				change = journal.read(entry);
+			} catch (IOException e) {
+				throw new GLSPServerException("Could not read changes of '" + getLabel() + "' from the undo journal",
+						e);
+			}
+		}
+		return change;
+	}
+
 	@Override
 	public boolean canUndo() {
-		return change != null;
+		return change != null || journalEntry != null;
 	}
 
 	@Override
 	public void undo() {
-		applyChanges();
+		GModelChangeRecord record = getChange();
+		GModelChangeNotifier.get(modelRoot).runInTransaction(record::undo);
+		undone = true;
 	}
 
 	@Override
 	public void redo() {
-		applyChanges();
+		GModelChangeRecord record = getChange();
+		GModelChangeNotifier.get(modelRoot).runInTransaction(record::redo);
+		undone = false;
 	}
 
-	private void applyChanges() {
-		GModelChangeRecorder recorder = new GModelChangeRecorder(modelRoot).beginRecording();
-		try {
-			change.apply();
-		} finally {
-			change = recorder.endRecording();
-			recorder.dispose();
-		}
+	@Override
+	public void dispose() {
+		change = null;
+		journal = null;
+		journalEntry = null;
+		undoneJournalEntry = null;
 	}
 
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.log4j.Logger;
+
+import com.eclipsesource.glsp.api.jsonrpc.GLSPServerException;
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Append-only journal file that stores {@link GModelChangeRecord}s outside of
+ * the heap. Records are appended at the end of the file and read back with
+ * positional reads of their region. The space of records that are no longer
+ * needed is only reclaimed if the whole journal is {@link #clear() cleared}.
+ */
+public class GModelUndoJournal implements Closeable {
+
+	private static Logger LOG = Logger.getLogger(GModelUndoJournal.class);
+
+	private final Path file;
+	private final FileChannel channel;
+	private final GModelChangeRecordSerializer serializer;
+	private long end;
+
+	/**
+	 * Creates a journal in a new temporary file that is deleted when the journal
+	 * is closed.
+	 */
+	public GModelUndoJournal(GModelRoot modelRoot) {
+		this(createTempFile(), modelRoot);
+	}
+
+	public GModelUndoJournal(Path file, GModelRoot modelRoot) {
+		this.file = file;
+		this.serializer = new GModelChangeRecordSerializer(modelRoot);
+		try {
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		} catch (IOException e) {
+			throw new GLSPServerException("Could not open undo journal " + file, e);
+		}
+	}
+
+	private static Path createTempFile() {
+		try {
+			Path file = Files.createTempFile("glsp-undo-", ".journal");
+			file.toFile().deleteOnExit();
+			return file;
+		} catch (IOException e) {
+			throw new GLSPServerException("Could not create undo journal", e);
+		}
+	}
+
+	/**
+	 * Appends the given record to the journal.
+	 * 
+	 * @param record the record to write
+	 * @return the entry to read the record back
+	 * @throws IOException if the record could not be written
+	 */
+	public synchronized Entry append(GModelChangeRecord record) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(serializer.write(record));
+		Entry entry = new Entry(end, buffer.remaining(), record.getEstimatedSize());
+		long position = end;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		end = position;
+		return entry;
+	}
+
+	/**
+	 * Reads a record from the journal. The model has to be in the state right
+	 * after the recording of the record, as the objects of the model it refers to
+	 * are resolved from the current model.
+	 * 
+	 * @param entry the entry returned when the record was appended
+	 * @return the restored record
+	 * @throws IOException if the record could not be read
+	 */
+	public synchronized GModelChangeRecord read(Entry entry) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+		long position = entry.offset;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new EOFException("Undo journal " + file + " ends within the record at " + entry.offset);
+			}
+			position += read;
+		}
+		return serializer.read(buffer.array());
+	}
+
+	/**
+	 * Discards all records of the journal. Entries returned before can no longer
+	 * be read.
+	 */
+	public synchronized void clear() {
+		try {
+			channel.truncate(0);
+			end = 0;
+		} catch (IOException e) {
+			LOG.warn("Could not truncate undo journal " + file, e);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes currently occupied by the journal file.
+	 */
+	public synchronized long getSize() {
+		return end;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public synchronized void close() {
+		try {
+			channel.close();
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.warn("Could not delete undo journal " + file, e);
+		}
+	}
+
+	/**
+	 * Location of a record in the journal.
+	 */
+	public static final class Entry {
+		private final long offset;
+		private final int length;
+		private final long estimatedSize;
+
+		private Entry(long offset, int length, long estimatedSize) {
+			this.offset = offset;
+			this.length = length;
+			this.estimatedSize = estimatedSize;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		/**
+		 * Returns the estimated heap size of the record once it is read again.
+		 */
+		public long getEstimatedSize() {
+			return estimatedSize;
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.command;
+
+import org.eclipse.emf.common.command.CommandStack;
+
+import com.eclipsesource.glsp.graph.GModelRoot;
+
+/**
+ * Creates a {@link GModelJournalingCommandStack}, which keeps the older undo
+ * history in a journal file instead of on the heap. Bind this factory in the
+ * module of a server with large models and a long undo history.
+ */
+public class JournalingCommandStackFactory extends DefaultCommandStackFactory {
+
+	private final int commandsInMemory;
+
+	public JournalingCommandStackFactory() {
+		this(GModelJournalingCommandStack.DEFAULT_COMMANDS_IN_MEMORY, 0, GModelCommandStack.DEFAULT_UNDO_MEMORY_LIMIT,
+				GModelCommandStack.DEFAULT_MERGE_WINDOW_MILLIS);
+	}
+
+	/**
+	 * @param commandsInMemory  the number of most recent undoable commands whose
+	 *                          changes are kept on the heap
+	 * @param undoLimit         the maximum number of undoable commands, or a
+	 *                          non-positive value for an unbounded history
+	 * @param undoMemoryLimit   the maximum number of bytes retained on the heap by
+	 *                          the history
+	 * @param mergeWindowMillis the maximum time between two commands with the
+	 *                          same merge key that are merged
+	 */
+	public JournalingCommandStackFactory(int commandsInMemory, int undoLimit, long undoMemoryLimit,
+			long mergeWindowMillis) {
+		super(undoLimit, undoMemoryLimit, mergeWindowMillis);
+		this.commandsInMemory = commandsInMemory;
+	}
+
+	@Override
+	public CommandStack createCommandStack(GModelRoot modelRoot) {
+		if (modelRoot == null) {
+			return super.createCommandStack(modelRoot);
+		}
+		GModelJournalingCommandStack commandStack = new GModelJournalingCommandStack(modelRoot, commandsInMemory,
+				getUndoLimit(), getUndoMemoryLimit());
+		commandStack.setMergeWindowMillis(getMergeWindowMillis());
+		return commandStack;
+	}
+
+	public int getCommandsInMemory() {
+		return commandsInMemory;
+	}
+
+}
@@ -18,6 +18,7 @@ package com.eclipsesource.glsp.server.di;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import com.eclipsesource.glsp.api.action.ActionProcessor;
 import com.eclipsesource.glsp.api.di.GLSPModule;
@@ -30,6 +31,7 @@ import com.eclipsesource.glsp.api.handler.OperationHandler;
 import com.eclipsesource.glsp.api.handler.ServerCommandHandler;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPClientProvider;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPServer;
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
 import com.eclipsesource.glsp.api.model.ModelStateProvider;
 import com.eclipsesource.glsp.api.provider.ActionHandlerProvider;
 import com.eclipsesource.glsp.api.provider.ActionProvider;
@@ -52,10 +54,12 @@ import com.eclipsesource.glsp.server.actionhandler.SaveModelActionHandler;
 import com.eclipsesource.glsp.server.actionhandler.SelectActionHandler;
 import com.eclipsesource.glsp.server.actionhandler.UndoRedoActionHandler;
 import com.eclipsesource.glsp.server.actionhandler.ValidateLabelEditActionHandler;
+import com.eclipsesource.glsp.server.command.DefaultCommandStackFactory;
 import com.eclipsesource.glsp.server.diagram.DIDiagramConfigurationProvider;
 import com.eclipsesource.glsp.server.factory.DefaultGraphGsonConfiguratorFactory;
 import com.eclipsesource.glsp.server.jsonrpc.DefaultGLSPClientProvider;
 import com.eclipsesource.glsp.server.jsonrpc.DefaultGLSPServer;
+import com.eclipsesource.glsp.server.layout.BoundsCache;
 import com.eclipsesource.glsp.server.model.DefaultModelStateProvider;
 import com.eclipsesource.glsp.server.model.FileBasedModelFactory;
 import com.eclipsesource.glsp.server.provider.DIActionHandlerProvider;
@@ -92,6 +96,7 @@ public abstract class DefaultGLSPModule extends GLSPModule {
 		bindServerCommandHandlers().forEach(h -> serverCommandHandler.addBinding().to(h));
 		bindOperationHandlers().forEach(h -> operationHandler.addBinding().to(h));
 		bindDiagramConfigurations().forEach(h -> diagramConfiguration.addBinding().to(h));
+		Optional.ofNullable(bindBoundsCache()).ifPresent(cache -> bind(BoundsCache.class).to(cache));
 	}
 
 	protected void rebind(Class<? extends ActionHandler> defaultBinding, Class<? extends ActionHandler> newBinding) {
@@ -145,11 +150,25 @@ public abstract class DefaultGLSPModule extends GLSPModule {
 		return DefaultModelStateProvider.class;
 	}
 
+	@Override
+	protected Class<? extends CommandStackFactory> bindCommandStackFactory() {
+		return DefaultCommandStackFactory.class;
+	}
+
 	@Override
 	protected Class<? extends DiagramConfigurationProvider> bindDiagramConfigurationProvider() {
 		return DIDiagramConfigurationProvider.class;
 	}
 
+	/**
+	 * Returns the implementation of the {@link BoundsCache}, or <code>null</code>
+	 * to use the default cache. Return {@link BoundsCache.NullImpl} to disable
+	 * caching.
+	 */
+	protected Class<? extends BoundsCache> bindBoundsCache() {
+		return null;
+	}
+
 	protected abstract Collection<Class<? extends OperationHandler>> bindOperationHandlers();
 
 	protected abstract Collection<Class<? extends DiagramConfiguration>> bindDiagramConfigurations();
@@ -30,6 +30,7 @@ import com.eclipsesource.glsp.api.jsonrpc.InitializeParameters;
 import com.eclipsesource.glsp.api.model.ModelStateProvider;
 import com.eclipsesource.glsp.api.types.ServerStatus;
 import com.eclipsesource.glsp.api.types.ServerStatus.Severity;
+import com.eclipsesource.glsp.server.actionhandler.ModelSubmissionHandler;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.inject.Inject;
@@ -43,6 +44,8 @@ public class DefaultGLSPServer<T> implements GLSPServer {
 	protected GLSPClientProvider clientProxyProvider;
 	@Inject
 	protected ActionProcessor actionProcessor;
+	@Inject
+	protected ModelSubmissionHandler submissionHandler;
 	static Logger log = Logger.getLogger(DefaultGLSPServer.class);
 
 	private ServerStatus status;
@@ -111,6 +114,7 @@ public class DefaultGLSPServer<T> implements GLSPServer {
 
 	@Override
 	public void exit(String clientId) {
+		modelStateProvider.getModelState(clientId).ifPresent(submissionHandler::dispose);
 		modelStateProvider.remove(clientId);
 		clientProxyProvider.remove(clientId);
 	}
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.jsonrpc;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import org.apache.log4j.Logger;
+import org.eclipse.lsp4j.jsonrpc.JsonRpcException;
+import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.json.StreamMessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+
+import com.google.gson.JsonIOException;
+
+/**
+ * Writes JSON-RPC messages to an output stream without building the complete
+ * JSON string of a message in memory. A message is serialized once into a
+ * spool that keeps up to the chunk size in memory. Messages that fit into the
+ * chunk are written right away. Larger messages, like the models of
+ * {@link com.eclipsesource.glsp.api.action.kind.SetModelAction SetModelActions},
+ * overflow into a temporary file, which is copied to the output stream after
+ * the header in chunks of the chunk size and deleted afterwards. The peak
+ * memory of a send therefore no longer depends on the size of the message,
+ * and the header always matches the content that is written.
+ * <p>
+ * In exchange, every message above the chunk size is written to disk and read
+ * back, so a larger chunk size trades memory for less disk I/O. The spool
+ * files are created in the spool directory, which defaults to the temporary
+ * directory of the system. They are deleted after each send, but remain if the
+ * process dies while a message is sent.
+ * </p>
+ */
+public class StreamingMessageConsumer implements MessageConsumer {
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private static Logger LOG = Logger.getLogger(StreamingMessageConsumer.class);
+
+	private static final String CONTENT_LENGTH_HEADER = "Content-Length: ";
+	private static final String CRLF = "\r\n";
+
+	private final OutputStream output;
+	private final MessageJsonHandler jsonHandler;
+	private final int chunkSize;
+	private final Path spoolDirectory;
+	private final Object outputLock = new Object();
+
+	public StreamingMessageConsumer(OutputStream output, MessageJsonHandler jsonHandler) {
+		this(output, jsonHandler, DEFAULT_CHUNK_SIZE);
+	}
+
+	public StreamingMessageConsumer(OutputStream output, MessageJsonHandler jsonHandler, int chunkSize) {
+		this(output, jsonHandler, chunkSize, null);
+	}
+
+	/**
+	 * @param output         the stream to write the messages to
+	 * @param jsonHandler    the handler to serialize the messages with
+	 * @param chunkSize      the number of bytes of a message that are kept in
+	 *                       memory and written at once
+	 * @param spoolDirectory the directory for the spool files of messages above
+	 *                       the chunk size, or <code>null</code> for the temporary
+	 *                       directory of the system
+	 */
+	public StreamingMessageConsumer(OutputStream output, MessageJsonHandler jsonHandler, int chunkSize,
+			Path spoolDirectory) {
+		this.output = output;
+		this.jsonHandler = jsonHandler;
+		this.chunkSize = chunkSize;
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	/**
+	 * Returns a message wrapper for an lsp4j launcher that replaces the default
+	 * consumer of outgoing messages with a streaming consumer. All other
+	 * consumers are kept.
+	 * 
+	 * @param jsonHandler the handler to serialize the messages with, configured
+	 *                    like the handler of the launcher
+	 */
+	public static Function<MessageConsumer, MessageConsumer> wrapper(MessageJsonHandler jsonHandler) {
+		return wrapper(jsonHandler, null);
+	}
+
+	/**
+	 * Returns a message wrapper like {@link #wrapper(MessageJsonHandler)} whose
+	 * consumers spool large messages into the given directory.
+	 * 
+	 * @param spoolDirectory the directory for the spool files, or
+	 *                       <code>null</code> for the temporary directory of the
+	 *                       system
+	 */
+	public static Function<MessageConsumer, MessageConsumer> wrapper(MessageJsonHandler jsonHandler,
+			Path spoolDirectory) {
+		return consumer -> consumer instanceof StreamMessageConsumer
+				? new StreamingMessageConsumer(((StreamMessageConsumer) consumer).getOutput(), jsonHandler,
+						DEFAULT_CHUNK_SIZE, spoolDirectory)
+				: consumer;
+	}
+
+	public Path getSpoolDirectory() {
+		return spoolDirectory;
+	}
+
+	@Override
+	public void consume(Message message) {
+		try (MessageSpool spool = new MessageSpool(chunkSize)) {
+			serialize(message, spool);
+			synchronized (outputLock) {
+				writeHeader(spool.getCount());
+				spool.writeTo(output);
+				output.flush();
+			}
+		} catch (IOException | JsonIOException e) {
+			throw new JsonRpcException(e);
+		}
+	}
+
+	protected void writeHeader(long contentLength) throws IOException {
+		String header = CONTENT_LENGTH_HEADER + contentLength + CRLF + CRLF;
+		output.write(header.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Creates the temporary file that a message overflows into if it is larger
+	 * than the chunk size. The file is deleted once the message is written.
+	 */
+	protected Path createSpoolFile() throws IOException {
+		return spoolDirectory != null ? Files.createTempFile(spoolDirectory, "glsp-message", ".json")
+				: Files.createTempFile("glsp-message", ".json");
+	}
+
+	private static void deleteSpoolFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOG.warn("Could not delete the spooled message " + file, e);
+		}
+	}
+
+	private void serialize(Message message, OutputStream stream) throws IOException {
+		Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+		jsonHandler.serialize(message, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Keeps the bytes written to it in memory as long as they fit into one chunk,
+	 * and moves them to a temporary file once they exceed it.
+	 */
+	private class MessageSpool extends OutputStream {
+		private final byte[] chunk;
+		private long count;
+		private Path file;
+		private OutputStream fileOutput;
+
+		MessageSpool(int chunkSize) {
+			this.chunk = new byte[chunkSize];
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (fileOutput == null && count < chunk.length) {
+				chunk[(int) count] = (byte) b;
+			} else {
+				overflow().write(b);
+			}
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (fileOutput == null && count + length <= chunk.length) {
+				System.arraycopy(bytes, offset, chunk, (int) count, length);
+			} else {
+				overflow().write(bytes, offset, length);
+			}
+			count += length;
+		}
+
+		private OutputStream overflow() throws IOException {
+			if (fileOutput == null) {
+				file = createSpoolFile();
+				fileOutput = new BufferedOutputStream(Files.newOutputStream(file), chunk.length);
+				fileOutput.write(chunk, 0, (int) count);
+			}
+			return fileOutput;
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		void writeTo(OutputStream out) throws IOException {
+			if (fileOutput == null) {
+				out.write(chunk, 0, (int) count);
+				return;
+			}
+			fileOutput.close();
+			try (InputStream in = Files.newInputStream(file)) {
+				int read;
+				while ((read = in.read(chunk)) != -1) {
+					out.write(chunk, 0, read);
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (fileOutput != null) {
+				try {
+					fileOutput.close();
+				} finally {
+					deleteSpoolFile(file);
+				}
+			}
+		}
+	}
+
+}
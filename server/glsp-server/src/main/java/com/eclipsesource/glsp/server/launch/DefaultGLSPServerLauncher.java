@@ -24,6 +24,8 @@ import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -35,11 +37,13 @@ import java.util.function.Function;
 import org.apache.log4j.Logger;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.jsonrpc.MessageConsumer;
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
 
 import com.eclipsesource.glsp.api.di.GLSPModule;
 import com.eclipsesource.glsp.api.json.GsonConfigurator;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPClient;
 import com.eclipsesource.glsp.api.jsonrpc.GLSPServer;
+import com.eclipsesource.glsp.server.jsonrpc.StreamingMessageConsumer;
 import com.google.gson.GsonBuilder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -50,11 +54,25 @@ public class DefaultGLSPServerLauncher extends GLSPServerLauncher {
 	private ExecutorService threadPool;
 	private AsynchronousServerSocketChannel serverSocket;
 	private CompletableFuture<Void> onShutdown;
+	private Path spoolDirectory;
 
 	public DefaultGLSPServerLauncher(GLSPModule module) {
 		super(module);
 	}
 
+	public Path getSpoolDirectory() {
+		return spoolDirectory;
+	}
+
+	/**
+	 * Sets the directory in which large outgoing messages are spooled, see
+	 * {@link StreamingMessageConsumer}. Defaults to the temporary directory of
+	 * the system.
+	 */
+	public void setSpoolDirectory(Path spoolDirectory) {
+		this.spoolDirectory = spoolDirectory;
+	}
+
 	@Override
 	public void run(String hostname, int port) {
 		Future<Void> onClose;
@@ -103,7 +121,9 @@ public class DefaultGLSPServerLauncher extends GLSPServerLauncher {
 		OutputStream out = Channels.newOutputStream(socketChannel);
 
 		Consumer<GsonBuilder> configureGson = (GsonBuilder builder) -> gsonConf.configureGsonBuilder(builder);
-		Function<MessageConsumer, MessageConsumer> wrapper = Function.identity();
+		// stream outgoing messages instead of building their JSON strings in memory
+		Function<MessageConsumer, MessageConsumer> wrapper = StreamingMessageConsumer
+				.wrapper(new MessageJsonHandler(Collections.emptyMap(), configureGson), spoolDirectory);
 		GLSPServer languageServer = injector.getInstance(GLSPServer.class);
 
 		Launcher<GLSPClient> launcher = Launcher.createIoLauncher(languageServer, GLSPClient.class, in, out, threadPool,
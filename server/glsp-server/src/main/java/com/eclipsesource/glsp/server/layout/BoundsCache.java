@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+import com.eclipsesource.glsp.api.action.kind.ComputedBoundsAction;
+import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.eclipsesource.glsp.api.types.ElementAndAlignment;
+import com.eclipsesource.glsp.api.types.ElementAndBounds;
+import com.eclipsesource.glsp.api.utils.ClientOptions;
+import com.eclipsesource.glsp.graph.GAlignable;
+import com.eclipsesource.glsp.graph.GBoundsAware;
+import com.eclipsesource.glsp.graph.GDimension;
+import com.eclipsesource.glsp.graph.GLabel;
+import com.eclipsesource.glsp.graph.GLayoutOptions;
+import com.eclipsesource.glsp.graph.GLayouting;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelListener;
+import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.graph.GModelSubscription;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.GraphPackage;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.google.inject.Singleton;
+
+/**
+ * Caches the bounds that clients have computed for the elements of a model.
+ * An element is identified by its shape key, which consists of the diagram
+ * type, its type, label text, CSS classes and layout, together with the shape
+ * keys of its children. Elements with the same shape key are rendered with the
+ * same size, so the bounds of new or changed elements can be filled in from
+ * the cache instead of asking the client to compute them again.
+ * <p>
+ * For every model state the cache remembers the shape key each element had
+ * when its bounds were last computed or filled in. Elements whose shape key is
+ * unchanged keep their bounds, so e.g. a node that was resized by the user is
+ * not reset to its cached size. A subscription to the features that make up
+ * the shape keys tracks whether any shape changed since the model was last
+ * filled in completely, so unrelated changes like moves don't require to
+ * compute the keys of all elements again.
+ * </p>
+ * <p>
+ * Caching can be disabled by binding {@link NullImpl} instead.
+ * </p>
+ */
+@Singleton
+public class BoundsCache {
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/**
+	 * The changes that may affect the shape key of an element, or which require
+	 * to fill in its bounds again.
+	 */
+	protected static final GModelSubscription SHAPE_CHANGES = GModelSubscription.toFeatures(
+			GraphPackage.Literals.GMODEL_ELEMENT__ID, GraphPackage.Literals.GMODEL_ELEMENT__TYPE,
+			GraphPackage.Literals.GMODEL_ELEMENT__CSS_CLASSES, GraphPackage.Literals.GMODEL_ELEMENT__CHILDREN,
+			GraphPackage.Literals.GLABEL__TEXT, GraphPackage.Literals.GLAYOUTING__LAYOUT,
+			GraphPackage.Literals.GLAYOUTING__LAYOUT_OPTIONS, GraphPackage.Literals.GBOUNDS_AWARE__SIZE);
+
+	private final Map<String, Entry> entries;
+	private final Map<GraphicalModelState, Measurements> measurements = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	public BoundsCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public BoundsCache(int maxEntries) {
+		this.entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	/**
+	 * Stores the bounds of the elements in the given action, after they have been
+	 * applied to the model of the given model state.
+	 */
+	public void update(GraphicalModelState modelState, ComputedBoundsAction action) {
+		String prefix = getKeyPrefix(modelState);
+		Map<GModelElement, String> keys = new IdentityHashMap<>();
+		Map<String, String> measured = getMeasurements(modelState).keys;
+		for (ElementAndBounds bounds : action.getBounds()) {
+			update(modelState, bounds.getElementId(), prefix, keys, measured);
+		}
+		for (ElementAndAlignment alignment : action.getAlignments()) {
+			update(modelState, alignment.getElementId(), prefix, keys, measured);
+		}
+	}
+
+	private void update(GraphicalModelState modelState, String elementId, String prefix,
+			Map<GModelElement, String> keys, Map<String, String> measured) {
+		Optional<GModelElement> element = modelState.getIndex().get(elementId);
+		if (!element.isPresent() || !(element.get() instanceof GBoundsAware) || element.get() instanceof GModelRoot) {
+			return;
+		}
+		GBoundsAware boundsAware = (GBoundsAware) element.get();
+		if (!hasComputedSize(boundsAware)) {
+			return;
+		}
+		String key = getKey(element.get(), prefix, keys);
+		entries.put(key, new Entry(boundsAware));
+		measured.put(elementId, key);
+	}
+
+	/**
+	 * Fills in the bounds of all elements of the given model state whose shape
+	 * changed since their bounds were last computed, as far as the cache knows
+	 * them.
+	 * 
+	 * @return <code>true</code> if the bounds of all elements are known
+	 *         afterwards
+	 */
+	public boolean fill(GraphicalModelState modelState) {
+		GModelRoot root = modelState.getRoot();
+		if (root == null) {
+			return false;
+		}
+		Measurements measurementsOfState = getMeasurements(modelState);
+		if (measurementsOfState.complete) {
+			return true;
+		}
+		String prefix = getKeyPrefix(modelState);
+		Map<GModelElement, String> keys = new IdentityHashMap<>();
+		boolean[] filled = new boolean[1];
+		GModelChangeNotifier.get(root).runInTransaction(() -> {
+			filled[0] = fillChildren(root, prefix, keys, measurementsOfState.keys);
+		});
+		// sizes filled in above reset the flag, so it is only set afterwards
+		measurementsOfState.complete = filled[0];
+		return filled[0];
+	}
+
+	private boolean fillChildren(GModelElement element, String prefix, Map<GModelElement, String> keys,
+			Map<String, String> measured) {
+		for (GModelElement child : element.getChildren()) {
+			if (!fill(child, prefix, keys, measured)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean fill(GModelElement element, String prefix, Map<GModelElement, String> keys,
+			Map<String, String> measured) {
+		if (!fillChildren(element, prefix, keys, measured)) {
+			return false;
+		}
+		if (!(element instanceof GBoundsAware)) {
+			return true;
+		}
+		String key = getKey(element, prefix, keys);
+		if (key.equals(measured.get(element.getId())) && hasComputedSize((GBoundsAware) element)) {
+			return true;
+		}
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return false;
+		}
+		entry.apply(element);
+		measured.put(element.getId(), key);
+		return true;
+	}
+
+	/**
+	 * Removes all cached bounds.
+	 */
+	public void clear() {
+		entries.clear();
+		synchronized (measurements) {
+			measurements.values().forEach(Measurements::dispose);
+			measurements.clear();
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private Measurements getMeasurements(GraphicalModelState modelState) {
+		synchronized (measurements) {
+			Measurements measurementsOfState = measurements.get(modelState);
+			if (measurementsOfState == null || measurementsOfState.root != modelState.getRoot()) {
+				if (measurementsOfState != null) {
+					measurementsOfState.dispose();
+				}
+				measurementsOfState = new Measurements(modelState.getRoot());
+				measurements.put(modelState, measurementsOfState);
+			}
+			return measurementsOfState;
+		}
+	}
+
+	protected String getKeyPrefix(GraphicalModelState modelState) {
+		if (modelState.getClientOptions() == null) {
+			return "";
+		}
+		return ClientOptions.getValue(modelState.getClientOptions(), ClientOptions.DIAGRAM_TYPE).orElse("");
+	}
+
+	/**
+	 * Returns the shape key of the given element. The keys of the elements of one
+	 * subtree are computed only once per call.
+	 */
+	protected String getKey(GModelElement element, String prefix, Map<GModelElement, String> keys) {
+		String key = keys.get(element);
+		if (key != null) {
+			return key;
+		}
+		StringBuilder builder = new StringBuilder(prefix).append('|').append(element.getType());
+		if (element instanceof GLabel) {
+			builder.append('|').append(((GLabel) element).getText());
+		}
+		builder.append('|').append(element.getCssClasses());
+		if (element instanceof GLayouting) {
+			appendLayout(builder, (GLayouting) element);
+		}
+		if (!element.getChildren().isEmpty()) {
+			builder.append('[');
+			for (GModelElement child : element.getChildren()) {
+				builder.append(getKey(child, prefix, keys)).append(';');
+			}
+			builder.append(']');
+		}
+		key = builder.toString();
+		keys.put(element, key);
+		return key;
+	}
+
+	/**
+	 * Returns whether the given element has a size that the client computed or
+	 * that was filled in. Empty labels or compartments have a size of 0, which is
+	 * known as well, whereas sprotty marks unknown sizes as negative.
+	 */
+	protected static boolean hasComputedSize(GBoundsAware element) {
+		GDimension size = element.getSize();
+		return size != null && size.getWidth() >= 0 && size.getHeight() >= 0;
+	}
+
+	private static void appendLayout(StringBuilder builder, GLayouting layouting) {
+		builder.append('|').append(layouting.getLayout());
+		GLayoutOptions options = layouting.getLayoutOptions();
+		if (options != null) {
+			builder.append('|').append(options.getPaddingLeft()).append(',').append(options.getPaddingRight())
+					.append(',').append(options.getPaddingTop()).append(',').append(options.getPaddingBottom())
+					.append(',').append(options.getPaddingFactor()).append(',').append(options.isResizeContainer())
+					.append(',').append(options.getVGap()).append(',').append(options.getHGap()).append(',')
+					.append(options.getVAlign()).append(',').append(options.getHAlign()).append(',')
+					.append(options.getMinWidth()).append(',').append(options.getMinHeight());
+		}
+	}
+
+	/**
+	 * The shape keys the elements of one model had when their bounds were last
+	 * computed or filled in, and whether no shape changed since the model was
+	 * last filled in completely.
+	 */
+	private static final class Measurements {
+		private final GModelRoot root;
+		private final Map<String, String> keys = Collections.synchronizedMap(new HashMap<>());
+		private final GModelListener shapeListener = notification -> complete = false;
+		private volatile boolean complete;
+
+		Measurements(GModelRoot root) {
+			this.root = root;
+			if (root != null) {
+				GModelChangeNotifier.get(root).addListener(shapeListener, SHAPE_CHANGES);
+			}
+		}
+
+		void dispose() {
+			if (root != null) {
+				GModelChangeNotifier.get(root).removeListener(shapeListener);
+			}
+		}
+	}
+
+	/**
+	 * The cached bounds of one shape: its size, the alignment of labels and the
+	 * positions of the children of layout containers.
+	 */
+	private static final class Entry {
+		private final double width;
+		private final double height;
+		private final double[] alignment;
+		private final double[] childPositions;
+
+		Entry(GBoundsAware element) {
+			this.width = element.getSize().getWidth();
+			this.height = element.getSize().getHeight();
+			GPoint alignment = element instanceof GAlignable ? ((GAlignable) element).getAlignment() : null;
+			this.alignment = alignment != null ? new double[] { alignment.getX(), alignment.getY() } : null;
+			this.childPositions = hasLayout(element) ? getChildPositions((GModelElement) element) : null;
+		}
+
+		private static boolean hasLayout(GBoundsAware element) {
+			return element instanceof GLayouting && ((GLayouting) element).getLayout() != null;
+		}
+
+		private static double[] getChildPositions(GModelElement element) {
+			List<GBoundsAware> children = getBoundsAwareChildren(element);
+			double[] positions = new double[children.size() * 2];
+			for (int i = 0; i < children.size(); i++) {
+				GPoint position = children.get(i).getPosition();
+				if (position == null) {
+					return null;
+				}
+				positions[2 * i] = position.getX();
+				positions[2 * i + 1] = position.getY();
+			}
+			return positions;
+		}
+
+		void apply(GModelElement element) {
+			GBoundsAware boundsAware = (GBoundsAware) element;
+			GDimension size = boundsAware.getSize();
+			if (size == null || size.getWidth() != width || size.getHeight() != height) {
+				boundsAware.setSize(GraphUtil.dimension(width, height));
+			}
+			if (alignment != null && element instanceof GAlignable) {
+				GPoint current = ((GAlignable) element).getAlignment();
+				if (current == null || current.getX() != alignment[0] || current.getY() != alignment[1]) {
+					((GAlignable) element).setAlignment(GraphUtil.point(alignment[0], alignment[1]));
+				}
+			}
+			if (childPositions != null) {
+				List<GBoundsAware> children = getBoundsAwareChildren(element);
+				if (children.size() * 2 != childPositions.length) {
+					return;
+				}
+				for (int i = 0; i < children.size(); i++) {
+					GPoint current = children.get(i).getPosition();
+					double x = childPositions[2 * i];
+					double y = childPositions[2 * i + 1];
+					if (current == null || current.getX() != x || current.getY() != y) {
+						children.get(i).setPosition(GraphUtil.point(x, y));
+					}
+				}
+			}
+		}
+
+		private static List<GBoundsAware> getBoundsAwareChildren(GModelElement element) {
+			List<GBoundsAware> children = new ArrayList<>();
+			for (GModelElement child : element.getChildren()) {
+				if (child instanceof GBoundsAware) {
+					children.add((GBoundsAware) child);
+				}
+			}
+			return children;
+		}
+	}
+
+	/**
+	 * A cache that never stores any bounds, so that the bounds of all changed
+	 * models are estimated or computed by the client.
+	 */
+	public static class NullImpl extends BoundsCache {
+		public NullImpl() {
+			super(0);
+		}
+
+		@Override
+		public void update(GraphicalModelState modelState, ComputedBoundsAction action) {
+		}
+
+		@Override
+		public boolean fill(GraphicalModelState modelState) {
+			return false;
+		}
+	}
+
+}
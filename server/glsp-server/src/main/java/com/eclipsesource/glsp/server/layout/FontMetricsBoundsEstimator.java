@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.layout;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+import com.eclipsesource.glsp.api.diagram.DiagramConfiguration;
+import com.eclipsesource.glsp.api.diagram.DiagramConfigurationProvider;
+import com.eclipsesource.glsp.api.layout.BoundsEstimator;
+import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.eclipsesource.glsp.api.types.SizeRule;
+import com.eclipsesource.glsp.api.utils.ClientOptions;
+import com.eclipsesource.glsp.graph.GBoundsAware;
+import com.eclipsesource.glsp.graph.GDimension;
+import com.eclipsesource.glsp.graph.GLabel;
+import com.eclipsesource.glsp.graph.GLayoutOptions;
+import com.eclipsesource.glsp.graph.GLayouting;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.google.inject.Inject;
+
+/**
+ * Estimates the bounds of a model on the server. Labels are measured with the
+ * font metrics of the font that the {@link SizeRule} of their type specifies,
+ * and containers with a <code>vbox</code>, <code>hbox</code> or
+ * <code>stack</code> layout are sized and arranged like the client-side
+ * layouts of sprotty would do it, using the same default options. All other
+ * elements get the minimum size of their size rule.
+ * <p>
+ * Only the elements whose size is not known yet and the layout containers
+ * above them are estimated, so bounds that the client has computed before are
+ * kept. The estimation only takes place if the diagram configuration of the
+ * client declares size rules. If a label without a known size has no rule with
+ * a font, or another element has neither a rule nor a known size, the bounds
+ * cannot be estimated and the client has to compute them.
+ * </p>
+ */
+public class FontMetricsBoundsEstimator implements BoundsEstimator {
+	private static Logger LOG = Logger.getLogger(FontMetricsBoundsEstimator.class);
+
+	public static final String VBOX = "vbox";
+	public static final String HBOX = "hbox";
+	public static final String STACK = "stack";
+
+	protected static final double DEFAULT_PADDING = 5;
+	protected static final double DEFAULT_GAP = 1;
+	protected static final double DEFAULT_PADDING_FACTOR = 1;
+	protected static final String CENTER = "center";
+	protected static final String START = "start";
+	protected static final String LEFT = "left";
+	protected static final String TOP = "top";
+
+	private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(new AffineTransform(), true,
+			true);
+
+	@Inject
+	protected DiagramConfigurationProvider diagramConfigurationProvider;
+
+	private final Map<String, Font> fonts = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean estimateBounds(GraphicalModelState modelState) {
+		GModelRoot root = modelState.getRoot();
+		Map<String, SizeRule> sizeRules = getSizeRules(modelState);
+		if (root == null || sizeRules.isEmpty()) {
+			return false;
+		}
+		Set<GModelElement> unknown = new LinkedHashSet<>();
+		if (!collectChildren(root, sizeRules, unknown)) {
+			LOG.debug("Could not estimate the bounds of the model of client " + modelState.getClientId());
+			return false;
+		}
+		if (!unknown.isEmpty()) {
+			GModelChangeNotifier.get(root)
+					.runInTransaction(() -> unknown.forEach(element -> estimate(element, sizeRules)));
+		}
+		return true;
+	}
+
+	protected Map<String, SizeRule> getSizeRules(GraphicalModelState modelState) {
+		if (modelState.getClientOptions() == null) {
+			return Collections.emptyMap();
+		}
+		Optional<DiagramConfiguration> configuration = ClientOptions
+				.getValue(modelState.getClientOptions(), ClientOptions.DIAGRAM_TYPE)
+				.flatMap(diagramConfigurationProvider::get);
+		return configuration.map(DiagramConfiguration::getSizeRules).orElse(Collections.emptyMap());
+	}
+
+	private boolean collectChildren(GModelElement element, Map<String, SizeRule> sizeRules,
+			Set<GModelElement> toEstimate) {
+		for (GModelElement child : element.getChildren()) {
+			if (!collect(child, sizeRules, toEstimate)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the given element and its descendants to the given set if their
+	 * bounds have to be estimated, children before their parents. These are the
+	 * elements without a known size and the layout containers whose children are
+	 * estimated. The model is not changed, so that it never ends up partially
+	 * estimated.
+	 * 
+	 * @return <code>false</code> if the bounds of one of the elements cannot be
+	 *         estimated
+	 */
+	protected boolean collect(GModelElement element, Map<String, SizeRule> sizeRules,
+			Set<GModelElement> toEstimate) {
+		if (!collectChildren(element, sizeRules, toEstimate)) {
+			return false;
+		}
+		if (!(element instanceof GBoundsAware)) {
+			return true;
+		}
+		boolean layouting = isLayoutContainer(element);
+		if (hasKnownSize((GBoundsAware) element)
+				&& !(layouting && element.getChildren().stream().anyMatch(toEstimate::contains))) {
+			return true;
+		}
+		SizeRule rule = sizeRules.get(element.getType());
+		if (element instanceof GLabel ? rule == null || rule.getFontFamily() == null : !layouting && rule == null) {
+			return false;
+		}
+		toEstimate.add(element);
+		return true;
+	}
+
+	/**
+	 * Estimates the size of the given element after the sizes of its children
+	 * have been estimated. Only called for the elements collected by
+	 * {@link #collect(GModelElement, Map, Set)}.
+	 */
+	protected void estimate(GModelElement element, Map<String, SizeRule> sizeRules) {
+		GBoundsAware boundsAware = (GBoundsAware) element;
+		SizeRule rule = sizeRules.get(element.getType());
+		if (element instanceof GLabel) {
+			estimateLabel((GLabel) element, rule);
+		} else if (isLayoutContainer(element)) {
+			GDimension size = layout((GLayouting) element, rule != null ? rule.getMinWidth() : 0,
+					rule != null ? rule.getMinHeight() : 0);
+			setSize(boundsAware, size.getWidth(), size.getHeight());
+		} else {
+			setSize(boundsAware, rule.getMinWidth(), rule.getMinHeight());
+		}
+	}
+
+	protected void estimateLabel(GLabel label, SizeRule rule) {
+		Font font = fonts.computeIfAbsent(rule.getFontFamily() + ":" + rule.getFontSize() + ":" + rule.isBold(),
+				key -> createFont(rule));
+		String text = label.getText() != null ? label.getText() : "";
+		Rectangle2D bounds = font.getStringBounds(text, FONT_RENDER_CONTEXT);
+		LineMetrics metrics = font.getLineMetrics(text, FONT_RENDER_CONTEXT);
+		setSize(label, Math.ceil(bounds.getWidth()), Math.ceil(metrics.getAscent() + metrics.getDescent()));
+		if (label.getAlignment() == null) {
+			label.setAlignment(GraphUtil.point(0, Math.ceil(metrics.getAscent())));
+		}
+	}
+
+	protected Font createFont(SizeRule rule) {
+		return new Font(rule.getFontFamily(), rule.isBold() ? Font.BOLD : Font.PLAIN, rule.getFontSize());
+	}
+
+	private boolean isLayoutContainer(GModelElement element) {
+		return element instanceof GLayouting && isSupportedLayout(((GLayouting) element).getLayout());
+	}
+
+	protected boolean isSupportedLayout(String layout) {
+		return VBOX.equals(layout) || HBOX.equals(layout) || STACK.equals(layout);
+	}
+
+	/**
+	 * Arranges the children of the given container and returns the size of the
+	 * container, which is at least the given minimum size.
+	 */
+	protected GDimension layout(GLayouting container, double minWidth, double minHeight) {
+		GLayoutOptions options = container.getLayoutOptions();
+		String layout = container.getLayout();
+		boolean vertical = VBOX.equals(layout);
+		boolean horizontal = HBOX.equals(layout);
+		double paddingLeft = option(options != null ? options.getPaddingLeft() : null, DEFAULT_PADDING);
+		double paddingRight = option(options != null ? options.getPaddingRight() : null, DEFAULT_PADDING);
+		double paddingTop = option(options != null ? options.getPaddingTop() : null, DEFAULT_PADDING);
+		double paddingBottom = option(options != null ? options.getPaddingBottom() : null, DEFAULT_PADDING);
+		double paddingFactor = option(options != null ? options.getPaddingFactor() : null, DEFAULT_PADDING_FACTOR);
+		double vGap = vertical ? option(options != null ? options.getVGap() : null, DEFAULT_GAP) : 0;
+		double hGap = horizontal ? option(options != null ? options.getHGap() : null, DEFAULT_GAP) : 0;
+		String hAlign = options != null && options.getHAlign() != null ? options.getHAlign() : CENTER;
+		String vAlign = options != null && options.getVAlign() != null ? options.getVAlign() : CENTER;
+
+		List<GBoundsAware> children = ((GModelElement) container).getChildren().stream()
+				.filter(GBoundsAware.class::isInstance).map(GBoundsAware.class::cast).collect(Collectors.toList());
+		double contentWidth = 0;
+		double contentHeight = 0;
+		for (GBoundsAware child : children) {
+			GDimension size = child.getSize();
+			double childWidth = size != null ? size.getWidth() : 0;
+			double childHeight = size != null ? size.getHeight() : 0;
+			contentWidth = horizontal ? contentWidth + childWidth : Math.max(contentWidth, childWidth);
+			contentHeight = vertical ? contentHeight + childHeight : Math.max(contentHeight, childHeight);
+		}
+		if (!children.isEmpty()) {
+			contentWidth += hGap * (children.size() - 1);
+			contentHeight += vGap * (children.size() - 1);
+		}
+		contentWidth *= paddingFactor;
+		contentHeight *= paddingFactor;
+
+		double width = Math.max(contentWidth + paddingLeft + paddingRight, minWidth);
+		double height = Math.max(contentHeight + paddingTop + paddingBottom, minHeight);
+		if (options != null && options.getMinWidth() != null) {
+			width = Math.max(width, options.getMinWidth());
+		}
+		if (options != null && options.getMinHeight() != null) {
+			height = Math.max(height, options.getMinHeight());
+		}
+		double availableWidth = width - paddingLeft - paddingRight;
+		double availableHeight = height - paddingTop - paddingBottom;
+
+		double x = paddingLeft;
+		double y = paddingTop;
+		for (GBoundsAware child : children) {
+			GDimension size = child.getSize();
+			double childWidth = size != null ? size.getWidth() : 0;
+			double childHeight = size != null ? size.getHeight() : 0;
+			double childX = horizontal ? x : paddingLeft + align(hAlign, LEFT, availableWidth - childWidth);
+			double childY = vertical ? y : paddingTop + align(vAlign, TOP, availableHeight - childHeight);
+			setPosition(child, childX, childY);
+			x += horizontal ? childWidth + hGap : 0;
+			y += vertical ? childHeight + vGap : 0;
+		}
+		return GraphUtil.dimension(width, height);
+	}
+
+	private static double option(Double value, double defaultValue) {
+		return value != null ? value : defaultValue;
+	}
+
+	private static double align(String alignment, String start, double space) {
+		if (CENTER.equals(alignment)) {
+			return space / 2;
+		} else if (start.equals(alignment) || START.equals(alignment)) {
+			return 0;
+		}
+		return space;
+	}
+
+	/**
+	 * Returns whether the given element has a size, e.g. one computed by the
+	 * client. Empty labels have a size of 0, whereas sprotty marks unknown sizes
+	 * as negative.
+	 */
+	private static boolean hasKnownSize(GBoundsAware element) {
+		GDimension size = element.getSize();
+		return size != null && size.getWidth() >= 0 && size.getHeight() >= 0;
+	}
+
+	private static void setSize(GBoundsAware element, double width, double height) {
+		GDimension size = element.getSize();
+		if (size == null || size.getWidth() != width || size.getHeight() != height) {
+			element.setSize(GraphUtil.dimension(width, height));
+		}
+	}
+
+	private static void setPosition(GBoundsAware element, double x, double y) {
+		GPoint position = element.getPosition();
+		if (position == null || position.getX() != x || position.getY() != y) {
+			element.setPosition(GraphUtil.point(x, y));
+		}
+	}
+
+}
@@ -19,8 +19,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
 import com.eclipsesource.glsp.api.model.ModelStateProvider;
+import com.eclipsesource.glsp.server.command.DefaultCommandStackFactory;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 @Singleton
@@ -28,6 +31,9 @@ public class DefaultModelStateProvider implements ModelStateProvider {
 	
 	private Map<String, GraphicalModelState> clientModelStates;
 
+	@Inject(optional = true)
+	private CommandStackFactory commandStackFactory = new DefaultCommandStackFactory();
+
 	public DefaultModelStateProvider() {
 		clientModelStates = new ConcurrentHashMap<>();
 	}
@@ -46,7 +52,11 @@ public class DefaultModelStateProvider implements ModelStateProvider {
 	}
 
 	protected GraphicalModelState createModelState() {
-		return new ModelStateImpl();
+		return new ModelStateImpl(commandStackFactory);
+	}
+
+	protected CommandStackFactory getCommandStackFactory() {
+		return commandStackFactory;
 	}
 
 	@Override
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.eclipsesource.glsp.api.model.ModelPatchBuilder;
+import com.eclipsesource.glsp.api.types.Match;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelChangeSet;
+import com.eclipsesource.glsp.graph.GModelChangeSetListener;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GModelRoot;
+import com.eclipsesource.glsp.graph.GraphPackage;
+
+/**
+ * Collects the changes of a model since it was last submitted to the client and
+ * converts them into {@link Match matches} for an incremental
+ * <code>UpdateModelAction</code>. Added elements are sent with their
+ * contents, removed elements only by their id and the id of the parent they
+ * have been removed from, and elements whose own features have changed are
+ * replaced. Elements that have been moved to another parent are removed from
+ * the former parent and added to the new one. Changes of the children of an
+ * element are covered by the added and removed children and don't replace the
+ * element itself.
+ * <p>
+ * As the client appends added elements to their parent, an element whose
+ * children have been reordered is replaced to restore their order.
+ * </p>
+ * <p>
+ * No patch is built until the complete model has been submitted once, or if
+ * the changes cannot be expressed as matches, e.g. if the root or the id of
+ * an element has changed. In these cases the complete model has to be sent.
+ * </p>
+ */
+public class GModelPatchBuilder implements ModelPatchBuilder, GModelChangeSetListener {
+
+	public static final double DEFAULT_MAX_PATCH_RATIO = 0.5;
+
+	/**
+	 * Features whose changes don't require to replace the element, as they are
+	 * covered by the added and removed children or by the submission itself.
+	 */
+	private static final Set<EStructuralFeature> IGNORED_FEATURES = new HashSet<>(
+			Arrays.asList(GraphPackage.Literals.GMODEL_ELEMENT__CHILDREN, GraphPackage.Literals.GMODEL_ROOT__REVISION));
+
+	private final GModelRoot root;
+	private final Set<GModelElement> addedElements = new LinkedHashSet<>();
+	private final Set<GModelElement> changedElements = new LinkedHashSet<>();
+	// matches for the removed elements that are known by the client, by their id
+	private final Map<String, Match> removedElements = new LinkedHashMap<>();
+	private double maxPatchRatio = DEFAULT_MAX_PATCH_RATIO;
+	private boolean valid;
+
+	public GModelPatchBuilder(GModelRoot root) {
+		this.root = root;
+		GModelChangeNotifier.get(root).addChangeSetListener(this);
+	}
+
+	@Override
+	public synchronized void changesCommitted(GModelChangeSet changeSet) {
+		if (!valid) {
+			return;
+		}
+		for (GModelElement removed : changeSet.getRemovedElements()) {
+			boolean knownByClient = !addedElements.remove(removed) || removedElements.containsKey(removed.getId());
+			if (knownByClient && removed.getId() != null) {
+				// the client still knows the element at the place it had when first removed
+				GModelElement formerParent = changeSet.getFormerParent(removed);
+				removedElements.putIfAbsent(removed.getId(), new Match(createStub(removed),
+						formerParent != null ? formerParent.getId() : null, null, null));
+			}
+		}
+		addedElements.addAll(changeSet.getAddedElements());
+		for (GModelElement touched : changeSet.getTouchedElements()) {
+			Set<EStructuralFeature> features = changeSet.getChangedFeatures(touched);
+			if (IGNORED_FEATURES.containsAll(features)) {
+				continue;
+			}
+			if (touched == root || features.contains(GraphPackage.Literals.GMODEL_ELEMENT__ID)) {
+				invalidate();
+				return;
+			}
+			changedElements.add(touched);
+		}
+		// the client appends added elements, so reordered children require to replace their parent
+		for (GModelElement reordered : changeSet.getReorderedElements()) {
+			if (reordered == root) {
+				invalidate();
+				return;
+			}
+			changedElements.add(reordered);
+		}
+	}
+
+	@Override
+	public synchronized Optional<List<Match>> buildPatch() {
+		if (!valid) {
+			return Optional.empty();
+		}
+		GModelIndex index = GModelIndex.get(root);
+		List<Match> matches = new ArrayList<>(removedElements.values());
+
+		Set<GModelElement> added = new LinkedHashSet<>();
+		for (GModelElement element : addedElements) {
+			if (isAttached(element, index)) {
+				added.add(element);
+			}
+		}
+		Set<GModelElement> replaced = new LinkedHashSet<>();
+		for (GModelElement element : changedElements) {
+			if (isAttached(element, index) && !added.contains(element)) {
+				replaced.add(element);
+			}
+		}
+
+		int patchSize = 0;
+		int maxPatchSize = (int) (index.getSubtree(root).size() * maxPatchRatio);
+		for (GModelElement element : replaced) {
+			if (!hasAncestorIn(element, replaced, added)) {
+				matches.add(new Match(createStub(element), element.getParent().getId(), element,
+						element.getParent().getId()));
+				patchSize += index.getSubtree(element).size();
+			}
+		}
+		for (GModelElement element : added) {
+			if (!hasAncestorIn(element, replaced, added)) {
+				matches.add(new Match(null, null, element, element.getParent().getId()));
+				patchSize += index.getSubtree(element).size();
+			}
+		}
+		return patchSize <= maxPatchSize ? Optional.of(matches) : Optional.empty();
+	}
+
+	@Override
+	public synchronized void reset() {
+		addedElements.clear();
+		changedElements.clear();
+		removedElements.clear();
+		valid = true;
+	}
+
+	@Override
+	public synchronized void invalidate() {
+		addedElements.clear();
+		changedElements.clear();
+		removedElements.clear();
+		valid = false;
+	}
+
+	public double getMaxPatchRatio() {
+		return maxPatchRatio;
+	}
+
+	/**
+	 * Sets the maximum number of elements contained in a patch relative to the
+	 * number of elements of the model, above which the complete model is sent.
+	 */
+	public void setMaxPatchRatio(double maxPatchRatio) {
+		this.maxPatchRatio = maxPatchRatio;
+	}
+
+	public void dispose() {
+		GModelChangeNotifier.get(root).removeChangeSetListener(this);
+		invalidate();
+	}
+
+	private boolean isAttached(GModelElement element, GModelIndex index) {
+		return element.getId() != null && element.getParent() != null
+				&& index.get(element.getId()).orElse(null) == element;
+	}
+
+	private static boolean hasAncestorIn(GModelElement element, Set<GModelElement> replaced,
+			Set<GModelElement> added) {
+		for (GModelElement parent = element.getParent(); parent != null; parent = parent.getParent()) {
+			if (replaced.contains(parent) || added.contains(parent)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates an element that only identifies the given element for the left side
+	 * of a match.
+	 */
+	private static GModelElement createStub(GModelElement element) {
+		GModelElement stub = (GModelElement) EcoreUtil.create(element.eClass());
+		stub.setId(element.getId());
+		stub.setType(element.getType());
+		return stub;
+	}
+
+}
@@ -15,28 +15,54 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.server.model;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EventObject;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
+import org.apache.log4j.Logger;
 import org.eclipse.emf.common.command.Command;
 import org.eclipse.emf.common.command.CommandStack;
+import org.eclipse.emf.common.command.CommandStackListener;
 
+import com.eclipsesource.glsp.api.model.CommandStackFactory;
 import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.eclipsesource.glsp.api.model.ModelPatchBuilder;
+import com.eclipsesource.glsp.graph.GModelElementIdSet;
 import com.eclipsesource.glsp.graph.GModelIndex;
 import com.eclipsesource.glsp.graph.GModelRoot;
-import com.eclipsesource.glsp.server.command.GModelCommandStack;
+import com.eclipsesource.glsp.server.command.DefaultCommandStackFactory;
 
 public class ModelStateImpl implements GraphicalModelState {
 
+	private static Logger LOG = Logger.getLogger(ModelStateImpl.class);
+
+	private final CommandStackFactory commandStackFactory;
 	private Map<String, String> options;
 	private String clientId;
 	private GModelRoot currentModel;
 	private CommandStack commandStack;
+	private GModelPatchBuilder patchBuilder;
 	private Set<String> expandedElements;
 	private Set<String> selectedElements;
+	private final Object modelLock = new Object();
+	private final CommandStackListener revisionUpdater = this::commandStackChanged;
+	private int revision;
 
 	public ModelStateImpl() {
+		this(new DefaultCommandStackFactory());
+	}
+
+	/**
+	 * @param commandStackFactory the factory of the command stack that is created
+	 *                            for every new model
+	 */
+	public ModelStateImpl(CommandStackFactory commandStackFactory) {
+		this.commandStackFactory = commandStackFactory;
 		expandedElements = new HashSet<>();
 		selectedElements = new HashSet<>();
 	}
@@ -63,15 +89,105 @@ public class ModelStateImpl implements GraphicalModelState {
 
 	@Override
 	public void setRoot(GModelRoot newRoot) {
+		if (newRoot != null) {
+			// keep the revisions of a client increasing if its model is replaced
+			revision = Math.max(revision + 1, newRoot.getRevision());
+			newRoot.setRevision(revision);
+		}
 		this.currentModel = newRoot;
+		this.expandedElements = toElementIdSet(expandedElements);
+		this.selectedElements = toElementIdSet(selectedElements);
+		initializePatchBuilder();
 		initializeCommandStack();
 	}
 
+	/**
+	 * Returns a set of element ids that is backed by the handles of the current
+	 * model index and contains the given ids. If the given set is not backed by
+	 * the current index, a new set is created and the given set is cleared, so
+	 * that it releases its handles.
+	 */
+	protected Set<String> toElementIdSet(Set<String> elementIds) {
+		if (currentModel == null) {
+			return elementIds;
+		}
+		GModelIndex index = getIndex();
+		if (elementIds instanceof GModelElementIdSet && ((GModelElementIdSet) elementIds).getIndex() == index) {
+			return elementIds;
+		}
+		GModelElementIdSet elementIdSet = new GModelElementIdSet(index);
+		elementIdSet.addAll(elementIds);
+		elementIds.clear();
+		return elementIdSet;
+	}
+
+	/**
+	 * Replaces the content of the given set of this state with a copy of the
+	 * given ids.
+	 */
+	protected void replaceElementIds(Set<String> elementIds, Collection<String> newElementIds) {
+		if (elementIds != newElementIds) {
+			elementIds.clear();
+			elementIds.addAll(newElementIds);
+		}
+	}
+
+	protected void initializePatchBuilder() {
+		if (patchBuilder != null) {
+			patchBuilder.dispose();
+		}
+		patchBuilder = currentModel != null ? new GModelPatchBuilder(currentModel) : null;
+	}
+
+	@Override
+	public Optional<ModelPatchBuilder> getPatchBuilder() {
+		return Optional.ofNullable(patchBuilder);
+	}
+
 	protected void initializeCommandStack() {
-		if (commandStack != null) {
-			commandStack.flush();
+		disposeCommandStack();
+		commandStack = createCommandStack();
+		commandStack.addCommandStackListener(revisionUpdater);
+	}
+
+	protected CommandStack createCommandStack() {
+		return commandStackFactory.createCommandStack(currentModel);
+	}
+
+	protected void disposeCommandStack() {
+		if (commandStack == null) {
+			return;
+		}
+		commandStack.removeCommandStackListener(revisionUpdater);
+		commandStack.flush();
+		if (commandStack instanceof Closeable) {
+			try {
+				((Closeable) commandStack).close();
+			} catch (IOException e) {
+				LOG.warn("Could not close command stack", e);
+			}
 		}
-		commandStack = new GModelCommandStack();
+	}
+
+	/**
+	 * Increments the revision of the current model after a command has been
+	 * executed, undone or redone.
+	 */
+	protected void commandStackChanged(EventObject event) {
+		if (currentModel != null) {
+			revision = Math.max(revision, currentModel.getRevision()) + 1;
+			currentModel.setRevision(revision);
+		}
+	}
+
+	@Override
+	public int getRevision() {
+		return currentModel != null ? currentModel.getRevision() : revision;
+	}
+
+	@Override
+	public Object getModelLock() {
+		return modelLock;
 	}
 
 	public CommandStack getCommandStack() {
@@ -79,11 +195,11 @@ public class ModelStateImpl implements GraphicalModelState {
 	}
 
 	protected void setCommandStack(final CommandStack commandStack) {
-		if (this.commandStack != null) {
-			this.commandStack.flush();
-		}
-
+		disposeCommandStack();
 		this.commandStack = commandStack;
+		if (commandStack != null) {
+			commandStack.addCommandStackListener(revisionUpdater);
+		}
 	}
 
 	@Override
@@ -103,13 +219,12 @@ public class ModelStateImpl implements GraphicalModelState {
 
 	@Override
 	public void setExpandedElements(Set<String> expandedElements) {
-		this.expandedElements = expandedElements;
-
+		replaceElementIds(this.expandedElements, expandedElements);
 	}
 
 	@Override
 	public void setSelectedElements(Set<String> selectedElements) {
-		this.selectedElements = selectedElements;
+		replaceElementIds(this.selectedElements, selectedElements);
 	}
 
 	@Override
@@ -122,7 +237,9 @@ public class ModelStateImpl implements GraphicalModelState {
 		if (commandStack == null) {
 			return;
 		}
-		commandStack.execute(command);
+		synchronized (modelLock) {
+			commandStack.execute(command);
+		}
 	}
 	
 	@Override
@@ -146,7 +263,9 @@ public class ModelStateImpl implements GraphicalModelState {
 		if (commandStack == null) {
 			return;
 		}
-		commandStack.undo();
+		synchronized (modelLock) {
+			commandStack.undo();
+		}
 	}
 	
 	@Override
@@ -154,7 +273,9 @@ public class ModelStateImpl implements GraphicalModelState {
 		if (commandStack == null) {
 			return;
 		}
-		commandStack.redo();
+		synchronized (modelLock) {
+			commandStack.redo();
+		}
 	}
 
 }
@@ -15,12 +15,10 @@
  ******************************************************************************/
 package com.eclipsesource.glsp.server.operationhandler;
 
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -39,7 +37,6 @@ import com.eclipsesource.glsp.graph.GNode;
  */
 public class DeleteOperationHandler implements OperationHandler {
 	private static Logger log = Logger.getLogger(DeleteOperationHandler.class);
-	private Set<String> allDependantsIds;
 
 	@Override
 	public boolean handles(AbstractOperationAction action) {
@@ -54,25 +51,28 @@ public class DeleteOperationHandler implements OperationHandler {
 			throw new IllegalArgumentException("Elements to delete are not specified");
 		}
 		GModelIndex index = modelState.getIndex();
-		allDependantsIds = new HashSet<>();
-		boolean success = elementIds.stream().allMatch(eId -> delete(eId, index, modelState));
+		// Collect all dependents before deleting anything, so that the subtree
+		// ranges of the index stay valid during the collection
+		Set<GModelElement> dependents = new LinkedHashSet<>();
+		boolean success = elementIds.stream().allMatch(eId -> collect(eId, index, dependents, modelState));
 		if (!success) {
 			log.warn("Could not delete all elements as requested (see messages above to find out why)");
 		}
+		dependents.forEach(EcoreUtil::delete);
 	}
 
-	protected boolean delete(String elementId, GModelIndex index, GraphicalModelState modelState) {
-		if (allDependantsIds.contains(elementId)) {
-			// The element as already been deleted as dependent of a previously deleted
-			// element
-			return true;
-		}
-
+	protected boolean collect(String elementId, GModelIndex index, Set<GModelElement> dependents,
+			GraphicalModelState modelState) {
 		Optional<GModelElement> element = index.get(elementId);
 		if (!element.isPresent()) {
 			log.warn("Element not found: " + elementId);
 			return false;
 		}
+		if (dependents.contains(element.get())) {
+			// The element is already deleted as dependent of a previously collected
+			// element
+			return true;
+		}
 
 		// Always delete the top-level node
 		GModelElement nodeToDelete = findTopLevelElement(element.get());
@@ -81,11 +81,7 @@ public class DeleteOperationHandler implements OperationHandler {
 			return false; // Can't delete the root, or an element that doesn't belong to the model
 		}
 
-		Set<GModelElement> dependents = new LinkedHashSet<>();
 		collectDependents(dependents, nodeToDelete, modelState);
-
-		dependents.forEach(EcoreUtil::delete);
-		allDependantsIds.addAll(dependents.stream().map(GModelElement::getId).collect(Collectors.toSet()));
 		return true;
 	}
 
@@ -95,28 +91,27 @@ public class DeleteOperationHandler implements OperationHandler {
 			return;
 		}
 
-		// First, children
-		if (nodeToDelete.getChildren() != null) {
-			for (GModelElement child : nodeToDelete.getChildren()) {
-				collectDependents(dependents, child, modelState);
+		// Walk the subtree in reverse pre-order, so that children are collected
+		// before their parents and the node to delete comes last
+		GModelIndex index = modelState.getIndex();
+		List<GModelElement> subtree = index.getSubtree(nodeToDelete);
+		for (int i = subtree.size() - 1; i >= 0; i--) {
+			GModelElement element = subtree.get(i);
+			if (dependents.contains(element)) {
+				continue;
 			}
-		}
-
-		// Then, incoming/outgoing edges for nodes
-		if (nodeToDelete instanceof GNode) {
-			GModelIndex index = modelState.getIndex();
 
-			// Then, incoming/outgoing links
-			for (GModelElement incoming : index.getIncomingEdges(nodeToDelete)) {
-				collectDependents(dependents, incoming, modelState);
-			}
-			for (GModelElement outgoing : index.getOutgoingEdges(nodeToDelete)) {
-				collectDependents(dependents, outgoing, modelState);
+			// Incoming/outgoing edges for nodes
+			if (element instanceof GNode) {
+				for (GModelElement incoming : index.getIncomingEdges(element)) {
+					collectDependents(dependents, incoming, modelState);
+				}
+				for (GModelElement outgoing : index.getOutgoingEdges(element)) {
+					collectDependents(dependents, outgoing, modelState);
+				}
 			}
+			dependents.add(element);
 		}
-
-		// Finally, the node to delete
-		dependents.add(nodeToDelete);
 	}
 
 	protected GModelElement findTopLevelElement(GModelElement element) {
@@ -32,7 +32,7 @@ public class GModelUtil {
 	}
 
 	public static int generateId(EClass eClass, String id, GraphicalModelState modelState) {
-		return modelState.getIndex().getCounter(eClass, idAndIndex(id));
+		return modelState.getIndex().getCounter(eClass, id);
 	}
 
 	public static int generateId(GModelElement element, String id, GraphicalModelState modelState) {
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.api.action.kind.ComputedBoundsAction;
+import com.eclipsesource.glsp.api.types.ElementAndBounds;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GLabel;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.layout.BoundsCache;
+import com.eclipsesource.glsp.server.model.ModelStateImpl;
+
+class BoundsCacheTest {
+
+	private BoundsCache boundsCache;
+	private ModelStateImpl measuredState;
+
+	@BeforeEach
+	void setUpBoundsCache() {
+		boundsCache = new BoundsCache();
+		measuredState = createModelState("");
+	}
+
+	@Test
+	void testFillFromComputedBounds() {
+		computeBounds(measuredState, 30, 40);
+
+		ModelStateImpl modelState = createModelState("");
+		assertTrue(boundsCache.fill(modelState));
+		assertEquals(30, getNode(modelState).getSize().getWidth());
+		assertEquals(40, getNode(modelState).getSize().getHeight());
+	}
+
+	@Test
+	void testFillComputedZeroSize() {
+		computeBounds(measuredState, 0, 0);
+
+		assertTrue(boundsCache.fill(measuredState));
+		ModelStateImpl modelState = createModelState("");
+		assertTrue(boundsCache.fill(modelState));
+		assertEquals(0, getNode(modelState).getSize().getWidth());
+		assertEquals(0, getNode(modelState).getSize().getHeight());
+	}
+
+	@Test
+	void testIgnoreUnknownSize() {
+		computeBounds(measuredState, -1, -1);
+
+		// only the empty label is cached
+		assertEquals(1, boundsCache.size());
+		assertFalse(boundsCache.fill(createModelState("")));
+	}
+
+	@Test
+	void testDifferentShapeNotFilled() {
+		computeBounds(measuredState, 30, 40);
+
+		ModelStateImpl modelState = createModelState("other text");
+		assertFalse(boundsCache.fill(modelState));
+		assertNull(getNode(modelState).getSize());
+	}
+
+	@Test
+	void testNullImplNeverFills() {
+		boundsCache = new BoundsCache.NullImpl();
+		computeBounds(measuredState, 30, 40);
+
+		assertEquals(0, boundsCache.size());
+		assertFalse(boundsCache.fill(measuredState));
+		ModelStateImpl modelState = createModelState("");
+		assertFalse(boundsCache.fill(modelState));
+		assertNull(getNode(modelState).getSize());
+	}
+
+	private void computeBounds(ModelStateImpl modelState, double width, double height) {
+		ElementAndBounds labelBounds = new ElementAndBounds();
+		labelBounds.setElementId("label");
+		labelBounds.setNewSize(GraphUtil.dimension(0, 0));
+		ElementAndBounds nodeBounds = new ElementAndBounds();
+		nodeBounds.setElementId("node");
+		nodeBounds.setNewSize(GraphUtil.dimension(width, height));
+		ComputedBoundsAction action = new ComputedBoundsAction(Arrays.asList(labelBounds, nodeBounds),
+				Collections.emptyList(), modelState.getRevision());
+		((GLabel) modelState.getIndex().get("label").get()).setSize(labelBounds.getNewSize());
+		getNode(modelState).setSize(nodeBounds.getNewSize());
+		boundsCache.update(modelState, action);
+	}
+
+	private static ModelStateImpl createModelState(String labelText) {
+		GGraph graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		GNode node = GraphFactory.eINSTANCE.createGNode();
+		node.setId("node");
+		node.setType("node");
+		GLabel label = GraphFactory.eINSTANCE.createGLabel();
+		label.setId("label");
+		label.setType("label");
+		label.setText(labelText);
+		node.getChildren().add(label);
+		graph.getChildren().add(node);
+		ModelStateImpl modelState = new ModelStateImpl();
+		modelState.setRoot(graph);
+		return modelState;
+	}
+
+	private static GNode getNode(ModelStateImpl modelState) {
+		return (GNode) modelState.getIndex().get("node").get();
+	}
+
+}
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.assertModelEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.api.model.GraphicalModelState;
+import com.eclipsesource.glsp.api.types.SizeRule;
+import com.eclipsesource.glsp.graph.GBoundsAware;
+import com.eclipsesource.glsp.graph.GCompartment;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GLabel;
+import com.eclipsesource.glsp.graph.GLayoutOptions;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.layout.FontMetricsBoundsEstimator;
+import com.eclipsesource.glsp.server.model.ModelStateImpl;
+
+class FontMetricsBoundsEstimatorTest {
+
+	private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(new AffineTransform(), true,
+			true);
+
+	private Map<String, SizeRule> sizeRules;
+	private FontMetricsBoundsEstimator estimator;
+	private GGraph graph;
+	private ModelStateImpl modelState;
+
+	@BeforeEach
+	void setUpEstimator() {
+		sizeRules = new HashMap<>();
+		sizeRules.put("label", new SizeRule(Font.DIALOG, 12, false));
+		sizeRules.put("box", new SizeRule(30, 40));
+		estimator = new FontMetricsBoundsEstimator() {
+			@Override
+			protected Map<String, SizeRule> getSizeRules(GraphicalModelState modelState) {
+				return sizeRules;
+			}
+		};
+		graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		modelState = new ModelStateImpl();
+	}
+
+	@Test
+	void testMeasureLabel() {
+		GLabel label = createLabel("label1", "Some label text");
+		graph.getChildren().add(label);
+
+		assertEstimated();
+		Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
+		LineMetrics metrics = font.getLineMetrics("Some label text", FONT_RENDER_CONTEXT);
+		assertSize(label, Math.ceil(font.getStringBounds("Some label text", FONT_RENDER_CONTEXT).getWidth()),
+				Math.ceil(metrics.getAscent() + metrics.getDescent()));
+		assertEquals(0, label.getAlignment().getX());
+		assertEquals(Math.ceil(metrics.getAscent()), label.getAlignment().getY());
+	}
+
+	@Test
+	void testMeasureBoldLabelWider() {
+		sizeRules.put("bold", new SizeRule(Font.DIALOG, 12, true));
+		GLabel plain = createLabel("plain", "Some label text");
+		GLabel bold = createLabel("bold", "Some label text");
+		bold.setType("bold");
+		graph.getChildren().add(plain);
+		graph.getChildren().add(bold);
+
+		assertEstimated();
+		assertTrue(bold.getSize().getWidth() >= plain.getSize().getWidth());
+		assertTrue(plain.getSize().getWidth() > 0);
+	}
+
+	@Test
+	void testVBoxLayout() {
+		GNode container = createContainer("vbox", createBox("box1", 30, 40), createBox("box2", 50, 20));
+
+		assertEstimated();
+		// width: 50 + 2 * 5 padding, height: 40 + 1 gap + 20 + 2 * 5 padding
+		assertSize(container, 60, 71);
+		assertPosition(child(container, 0), 15, 5);
+		assertPosition(child(container, 1), 5, 46);
+	}
+
+	@Test
+	void testHBoxLayout() {
+		GNode container = createContainer("hbox", createBox("box1", 30, 40), createBox("box2", 50, 20));
+
+		assertEstimated();
+		// width: 30 + 1 gap + 50 + 2 * 5 padding, height: 40 + 2 * 5 padding
+		assertSize(container, 91, 50);
+		assertPosition(child(container, 0), 5, 5);
+		assertPosition(child(container, 1), 36, 15);
+	}
+
+	@Test
+	void testStackLayout() {
+		GNode container = createContainer("stack", createBox("box1", 30, 40), createBox("box2", 50, 20));
+
+		assertEstimated();
+		assertSize(container, 60, 50);
+		assertPosition(child(container, 0), 15, 5);
+		assertPosition(child(container, 1), 5, 15);
+	}
+
+	@Test
+	void testLayoutOptions() {
+		GNode container = createContainer("vbox", createBox("box1", 30, 40), createBox("box2", 50, 20));
+		GLayoutOptions options = GraphFactory.eINSTANCE.createGLayoutOptions();
+		options.setPaddingLeft(2.0);
+		options.setPaddingRight(4.0);
+		options.setPaddingTop(0.0);
+		options.setPaddingBottom(0.0);
+		options.setVGap(10.0);
+		options.setHAlign("left");
+		options.setMinWidth(100.0);
+		container.setLayoutOptions(options);
+
+		assertEstimated();
+		assertSize(container, 100, 70);
+		assertPosition(child(container, 0), 2, 0);
+		assertPosition(child(container, 1), 2, 50);
+	}
+
+	@Test
+	void testNestedLayoutWithRuleMinimum() {
+		GLabel label = createLabel("label1", "Header");
+		GCompartment compartment = GraphFactory.eINSTANCE.createGCompartment();
+		compartment.setId("compartment");
+		compartment.setType("compartment");
+		compartment.setLayout("vbox");
+		compartment.getChildren().add(label);
+		GNode container = createContainer("vbox", compartment);
+		container.setType("box");
+
+		assertEstimated();
+		assertSize(compartment, label.getSize().getWidth() + 10, label.getSize().getHeight() + 10);
+		// the rule of the container type is a minimum for the layout
+		assertSize(container, Math.max(30, compartment.getSize().getWidth() + 10),
+				Math.max(40, compartment.getSize().getHeight() + 10));
+	}
+
+	@Test
+	void testKeepClientComputedBounds() {
+		GLabel measured = createLabel("measured", "Measured by the client");
+		measured.setSize(GraphUtil.dimension(77, 13));
+		GLabel empty = createLabel("empty", "");
+		empty.setSize(GraphUtil.dimension(0, 0));
+		GNode container = createContainer("vbox", measured, empty);
+		container.setSize(GraphUtil.dimension(120, 40));
+		measured.setPosition(GraphUtil.point(3, 4));
+		GNode box = createBox("box", 30, 40);
+		box.setType("box");
+		box.setSize(GraphUtil.dimension(10, 10));
+		graph.getChildren().add(box);
+		GLabel added = createLabel("added", "Added on the server");
+		graph.getChildren().add(added);
+		modelState.setRoot(graph);
+		GGraph expected = EcoreUtil.copy(graph);
+
+		assertTrue(estimator.estimateBounds(modelState));
+		assertTrue(added.getSize().getWidth() > 0);
+		added.setSize(null);
+		added.setAlignment(null);
+		assertModelEquals(expected, graph);
+	}
+
+	@Test
+	void testLayoutContainersAboveUnknownElements() {
+		GLabel measured = createLabel("measured", "Measured by the client");
+		measured.setSize(GraphUtil.dimension(77, 13));
+		GLabel added = createLabel("added", "Added");
+		GCompartment compartment = GraphFactory.eINSTANCE.createGCompartment();
+		compartment.setId("compartment");
+		compartment.setType("compartment");
+		compartment.setLayout("vbox");
+		compartment.setSize(GraphUtil.dimension(87, 23));
+		compartment.getChildren().addAll(Arrays.asList(measured, added));
+		GNode container = createContainer("hbox", compartment);
+		container.setSize(GraphUtil.dimension(97, 33));
+
+		assertEstimated();
+		assertSize(measured, 77, 13);
+		double addedHeight = added.getSize().getHeight();
+		assertSize(compartment, Math.max(77, added.getSize().getWidth()) + 10, 13 + 1 + addedHeight + 10);
+		assertSize(container, compartment.getSize().getWidth() + 10, compartment.getSize().getHeight() + 10);
+	}
+
+	@Test
+	void testUnknownLabelLeavesModelUnchanged() {
+		GNode container = createContainer("vbox", createBox("box1", 30, 40), createLabel("label1", "text"));
+		GLabel unknown = createLabel("label2", "text");
+		unknown.setType("unknownLabel");
+		graph.getChildren().add(unknown);
+		modelState.setRoot(graph);
+		GGraph expected = EcoreUtil.copy(graph);
+
+		assertFalse(estimator.estimateBounds(modelState));
+		assertModelEquals(expected, graph);
+		assertNull(container.getSize());
+	}
+
+	@Test
+	void testUnsizedElementLeavesModelUnchanged() {
+		createContainer("hbox", createBox("box1", 30, 40));
+		GNode unsized = GraphFactory.eINSTANCE.createGNode();
+		unsized.setId("unsized");
+		unsized.setType("node");
+		graph.getChildren().add(unsized);
+		modelState.setRoot(graph);
+		GGraph expected = EcoreUtil.copy(graph);
+
+		assertFalse(estimator.estimateBounds(modelState));
+		assertModelEquals(expected, graph);
+	}
+
+	private void assertEstimated() {
+		modelState.setRoot(graph);
+		assertTrue(estimator.estimateBounds(modelState));
+	}
+
+	private GNode createContainer(String layout, GModelElement... children) {
+		GNode container = GraphFactory.eINSTANCE.createGNode();
+		container.setId("container");
+		container.setType("node");
+		container.setLayout(layout);
+		container.getChildren().addAll(Arrays.asList(children));
+		graph.getChildren().add(container);
+		return container;
+	}
+
+	private static GNode createBox(String id, double width, double height) {
+		GNode node = GraphFactory.eINSTANCE.createGNode();
+		node.setId(id);
+		node.setType("node");
+		node.setSize(GraphUtil.dimension(width, height));
+		return node;
+	}
+
+	private static GLabel createLabel(String id, String text) {
+		GLabel label = GraphFactory.eINSTANCE.createGLabel();
+		label.setId(id);
+		label.setType("label");
+		label.setText(text);
+		return label;
+	}
+
+	private static GBoundsAware child(GNode container, int index) {
+		return (GBoundsAware) container.getChildren().get(index);
+	}
+
+	private static void assertSize(GBoundsAware element, double width, double height) {
+		assertEquals(width, element.getSize().getWidth(), "width of " + element);
+		assertEquals(height, element.getSize().getHeight(), "height of " + element);
+	}
+
+	private static void assertPosition(GBoundsAware element, double x, double y) {
+		assertEquals(x, element.getPosition().getX(), "x of " + element);
+		assertEquals(y, element.getPosition().getY(), "y of " + element);
+	}
+
+}
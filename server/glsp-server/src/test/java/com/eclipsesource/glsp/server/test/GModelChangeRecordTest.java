@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.assertModelEquals;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createGraph;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.graph.GEdge;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.GraphPackage;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.command.GModelChangeRecord;
+import com.eclipsesource.glsp.server.command.GModelChangeRecorder;
+
+class GModelChangeRecordTest {
+
+	private GGraph graph;
+	private GNode node1;
+	private GNode node2;
+	private GNode node3;
+	private GModelChangeRecorder recorder;
+
+	@BeforeEach
+	void setUpGraphWithThreeNodes() {
+		node1 = createNode("node1");
+		node2 = createNode("node2");
+		node3 = createNode("node3");
+		graph = createGraph(node1, node2, node3);
+		recorder = new GModelChangeRecorder(graph);
+	}
+
+	@AfterEach
+	void disposeRecorder() {
+		recorder.dispose();
+	}
+
+	@Test
+	void testSet() {
+		GPoint position = node1.getPosition();
+		GModelChangeRecord record = assertUndoRedo(() -> {
+			node1.setType("changed");
+			node1.getCssClasses().add("selected");
+			node1.setPosition(GraphUtil.point(100, 200));
+		});
+
+		record.undo();
+		assertSame(position, node1.getPosition());
+	}
+
+	@Test
+	void testUnset() {
+		assertUndoRedo(() -> {
+			// none of the GModel features is unsettable, so simulate the notification of such a feature
+			node1.eSetDeliver(false);
+			node1.setType(null);
+			node1.eSetDeliver(true);
+			node1.eNotify(new ENotificationImpl((InternalEObject) node1, Notification.UNSET,
+					GraphPackage.Literals.GMODEL_ELEMENT__TYPE, "node", null, true));
+		});
+		assertNull(node1.getType());
+	}
+
+	@Test
+	void testListSet() {
+		GNode replacement = createNode("replacement");
+		assertUndoRedo(() -> graph.getChildren().set(1, replacement));
+		assertSame(replacement, graph.getChildren().get(1));
+	}
+
+	@Test
+	void testAdd() {
+		GNode added = createNode("added");
+		GModelChangeRecord record = assertUndoRedo(() -> graph.getChildren().add(1, added));
+
+		assertSame(added, graph.getChildren().get(1));
+		record.undo();
+		assertEquals(3, graph.getChildren().size());
+	}
+
+	@Test
+	void testAddMany() {
+		GNode added1 = createNode("added1");
+		GNode added2 = createNode("added2");
+		assertUndoRedo(() -> graph.getChildren().addAll(1, Arrays.asList(added1, added2)));
+
+		assertEquals(Arrays.asList(node1, added1, added2, node2, node3), graph.getChildren());
+	}
+
+	@Test
+	void testRemove() {
+		GModelChangeRecord record = assertUndoRedo(() -> graph.getChildren().remove(node2));
+
+		record.undo();
+		assertSame(node2, graph.getChildren().get(1));
+		assertSame(graph, node2.getParent());
+	}
+
+	@Test
+	void testRemoveMany() {
+		GModelChangeRecord record = assertUndoRedo(() -> graph.getChildren().removeAll(Arrays.asList(node1, node3)));
+
+		record.undo();
+		assertEquals(Arrays.asList(node1, node2, node3), graph.getChildren());
+	}
+
+	@Test
+	void testClear() {
+		GModelChangeRecord record = assertUndoRedo(() -> graph.getChildren().clear());
+
+		record.undo();
+		assertEquals(Arrays.asList(node1, node2, node3), graph.getChildren());
+	}
+
+	@Test
+	void testMove() {
+		GModelChangeRecord record = assertUndoRedo(() -> {
+			graph.getChildren().move(2, 0);
+			graph.getChildren().move(0, 1);
+		});
+
+		record.undo();
+		assertEquals(Arrays.asList(node1, node2, node3), graph.getChildren());
+	}
+
+	@Test
+	void testMoveAcrossContainers() {
+		GModelChangeRecord record = assertUndoRedo(() -> {
+			node2.getChildren().add(node1);
+			node3.getChildren().add(0, node2);
+		});
+
+		record.undo();
+		assertEquals(Arrays.asList(node1, node2, node3), graph.getChildren());
+		assertTrue(node2.getChildren().isEmpty());
+		record.redo();
+		assertSame(node3, node2.getParent());
+		assertSame(node2, node1.getParent());
+	}
+
+	@Test
+	void testRepeatedUndoRedo() {
+		GNode added = createNode("added");
+		GModelChangeRecord record = assertUndoRedo(() -> {
+			graph.getChildren().add(added);
+			added.getPosition().setX(42);
+			graph.getChildren().remove(node1);
+			node2.getChildren().add(node3);
+		});
+
+		for (int i = 0; i < 3; i++) {
+			record.undo();
+			record.redo();
+		}
+		assertEquals(Arrays.asList(node2, added), graph.getChildren());
+		assertEquals(42, added.getPosition().getX());
+	}
+
+	@Test
+	void testMergeSingleValuedChanges() {
+		GPoint position = node1.getPosition();
+		GModelChangeRecord record = assertUndoRedo(() -> {
+			for (int i = 0; i < 10; i++) {
+				node1.setPosition(GraphUtil.point(i, i));
+				node1.setType("type" + i);
+				node2.setSize(GraphUtil.dimension(i, i));
+			}
+		});
+		assertEquals(3, record.getDeltaCount());
+
+		record.undo();
+		assertSame(position, node1.getPosition());
+	}
+
+	@Test
+	void testMergeSkipsValuesMovedFromOtherContainers() {
+		GEdge edge = GraphFactory.eINSTANCE.createGEdge();
+		edge.setId("edge");
+		graph.getChildren().add(edge);
+		GPoint point = GraphUtil.point(1, 2);
+
+		assertUndoRedo(() -> {
+			node1.setPosition(point);
+			edge.getRoutingPoints().add(point);
+			edge.getRoutingPoints().remove(point);
+			node1.setPosition(point);
+		});
+		assertSame(point, node1.getPosition());
+	}
+
+	/**
+	 * Records the given changes and asserts that undoing them restores the model
+	 * as it was before the changes and that redoing them restores the changed
+	 * model. The record is redone afterwards.
+	 */
+	private GModelChangeRecord assertUndoRedo(Runnable changes) {
+		GGraph before = EcoreUtil.copy(graph);
+		recorder.beginRecording();
+		changes.run();
+		GModelChangeRecord record = recorder.endRecording();
+		GGraph after = EcoreUtil.copy(graph);
+
+		record.undo();
+		assertModelEquals(before, graph);
+		record.redo();
+		assertModelEquals(after, graph);
+		return record;
+	}
+
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.eclipse.emf.common.command.CommandStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GPoint;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.command.DefaultCommandStackFactory;
+import com.eclipsesource.glsp.server.command.GModelChangeRecorder;
+import com.eclipsesource.glsp.server.command.GModelCommandStack;
+import com.eclipsesource.glsp.server.command.GModelRecordingCommand;
+
+class GModelCommandStackTest {
+
+	private GGraph graph;
+	private GNode node;
+	private GModelChangeRecorder recorder;
+
+	@BeforeEach
+	void setUpGraphWithNode() {
+		graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		node = GraphFactory.eINSTANCE.createGNode();
+		node.setId("node");
+		node.setType("typeX");
+		graph.getChildren().add(node);
+		recorder = new GModelChangeRecorder(graph);
+	}
+
+	@AfterEach
+	void disposeRecorder() {
+		recorder.dispose();
+	}
+
+	@Test
+	void testEvictionByUndoLimit() {
+		GModelCommandStack commandStack = new GModelCommandStack(3, 0);
+		for (int i = 0; i < 5; i++) {
+			commandStack.execute(setType("type" + i));
+		}
+		assertEquals(3, commandStack.getUndoCount());
+
+		undoAll(commandStack);
+		assertEquals("type1", node.getType());
+	}
+
+	@Test
+	void testEvictionByUndoMemoryLimit() {
+		GModelCommandStack commandStack = new GModelCommandStack(0, 0);
+		commandStack.execute(setType("type0"));
+		long commandSize = commandStack.getFootprint();
+		assertTrue(commandSize > 0);
+
+		commandStack.setUndoMemoryLimit(2 * commandSize);
+		for (int i = 1; i < 5; i++) {
+			commandStack.execute(setType("type" + i));
+		}
+		assertEquals(2, commandStack.getUndoCount());
+		assertTrue(commandStack.getFootprint() <= 2 * commandSize);
+
+		undoAll(commandStack);
+		assertEquals("type2", node.getType());
+	}
+
+	@Test
+	void testEvictionWhenLimitIsLowered() {
+		GModelCommandStack commandStack = new GModelCommandStack(0, 0);
+		for (int i = 0; i < 5; i++) {
+			commandStack.execute(setType("type" + i));
+		}
+		commandStack.undo();
+		assertEquals(4, commandStack.getUndoCount());
+
+		commandStack.setUndoLimit(2);
+		assertEquals(2, commandStack.getUndoCount());
+		assertTrue(commandStack.canRedo());
+
+		undoAll(commandStack);
+		assertEquals("type1", node.getType());
+	}
+
+	@Test
+	void testFactoryConfiguresLimits() {
+		CommandStack commandStack = new DefaultCommandStackFactory(2, 0, -1).createCommandStack(graph);
+		assertTrue(commandStack instanceof GModelCommandStack);
+		assertEquals(2, ((GModelCommandStack) commandStack).getUndoLimit());
+		assertEquals(-1, ((GModelCommandStack) commandStack).getMergeWindowMillis());
+
+		for (int i = 0; i < 3; i++) {
+			GModelRecordingCommand command = setType("type" + i);
+			command.setMergeKey("setType");
+			commandStack.execute(command);
+		}
+		assertEquals(2, ((GModelCommandStack) commandStack).getUndoCount());
+	}
+
+	@Test
+	void testMergeGesture() {
+		GModelCommandStack commandStack = new GModelCommandStack();
+		int[] notifications = new int[1];
+		commandStack.addCommandStackListener(event -> notifications[0]++);
+		GPoint position = GraphUtil.point(0, 0);
+		node.setPosition(position);
+		long footprint = 0;
+		for (int i = 1; i <= 100; i++) {
+			GPoint newPosition = GraphUtil.point(i, i);
+			GModelRecordingCommand command = new GModelRecordingCommand(recorder, "Move",
+					() -> node.setPosition(newPosition));
+			command.setGestureId("drag");
+			commandStack.execute(command);
+			if (i == 1) {
+				footprint = commandStack.getFootprint();
+			}
+		}
+		assertEquals(1, commandStack.getUndoCount());
+		assertEquals(100, notifications[0]);
+		assertEquals(footprint, commandStack.getFootprint());
+
+		commandStack.undo();
+		assertSame(position, node.getPosition());
+		commandStack.redo();
+		assertEquals(100, node.getPosition().getX());
+	}
+
+	private GModelRecordingCommand setType(String type) {
+		return new GModelRecordingCommand(recorder, "Set type", () -> node.setType(type));
+	}
+
+	private static void undoAll(CommandStack commandStack) {
+		while (commandStack.canUndo()) {
+			commandStack.undo();
+		}
+		assertFalse(commandStack.canUndo());
+	}
+
+}
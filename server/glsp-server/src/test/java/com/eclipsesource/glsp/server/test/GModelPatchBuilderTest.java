@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.assertModelEquals;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createGraph;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.api.types.Match;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GModelChangeNotifier;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GModelIndex;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.model.GModelPatchBuilder;
+
+class GModelPatchBuilderTest {
+
+	private GGraph graph;
+	private GNode node1;
+	private GNode node2;
+	private GNode child;
+	private GModelPatchBuilder patchBuilder;
+	private GGraph submitted;
+
+	@BeforeEach
+	void setUpSubmittedGraph() {
+		node1 = createNode("node1");
+		child = createNode("child");
+		node2 = createNode("node2", child);
+		graph = createGraph(node1, node2, createNode("node3"), createNode("node4"));
+		patchBuilder = new GModelPatchBuilder(graph);
+		patchBuilder.setMaxPatchRatio(1);
+		submit();
+	}
+
+	@AfterEach
+	void disposePatchBuilder() {
+		patchBuilder.dispose();
+	}
+
+	@Test
+	void testRemoveNestedElement() {
+		node2.getChildren().remove(child);
+
+		List<Match> patch = assertPatch();
+		assertEquals(1, patch.size());
+		assertEquals("node2", patch.get(0).getLeftParentId());
+	}
+
+	@Test
+	void testAddAndReplaceElements() {
+		node1.getChildren().add(createNode("added"));
+		child.setType("changed");
+		node2.setPosition(GraphUtil.point(100, 200));
+
+		assertPatch();
+	}
+
+	@Test
+	void testMoveWithinTransaction() {
+		GModelChangeNotifier.get(graph).runInTransaction(() -> node1.getChildren().add(child));
+
+		List<Match> patch = assertPatch();
+		assertEquals(2, patch.size());
+	}
+
+	@Test
+	void testMoveAcrossTransactions() {
+		node1.getChildren().add(child);
+		graph.getChildren().add(child);
+		node1.getChildren().add(node2);
+
+		assertPatch();
+	}
+
+	@Test
+	void testRemoveMovedElement() {
+		node1.getChildren().add(child);
+		node1.getChildren().remove(child);
+
+		List<Match> patch = assertPatch();
+		assertEquals(1, patch.size());
+		assertEquals("node2", patch.get(0).getLeftParentId());
+	}
+
+	@Test
+	void testSuccessivePatches() {
+		node1.getChildren().add(child);
+		assertPatch();
+
+		node2.getChildren().add(child);
+		child.setType("changed");
+		assertPatch();
+	}
+
+	@Test
+	void testMoveChildWithinParent() {
+		addChildren(node2, "child2", "child3");
+
+		node2.getChildren().move(0, 2);
+		assertPatch(node2);
+		assertEquals(Arrays.asList("child3", "child", "child2"), getChildIds(node2));
+	}
+
+	@Test
+	void testInsertChildBeforeSiblings() {
+		node2.getChildren().add(0, createNode("inserted"));
+
+		assertPatch(node2);
+		assertEquals(Arrays.asList("inserted", "child"), getChildIds(node2));
+	}
+
+	@Test
+	void testReAddChildAtOtherIndex() {
+		addChildren(node2, "child2");
+
+		GModelChangeNotifier.get(graph).runInTransaction(() -> {
+			node2.getChildren().remove(child);
+			node2.getChildren().add(child);
+		});
+		assertPatch(node2);
+		assertEquals(Arrays.asList("child2", "child"), getChildIds(node2));
+	}
+
+	@Test
+	void testReorderRootChildrenRequiresModel() {
+		graph.getChildren().move(0, 3);
+
+		assertFalse(patchBuilder.buildPatch().isPresent());
+	}
+
+	@Test
+	void testChangedIdRequiresModel() {
+		child.setId("changed");
+
+		assertFalse(patchBuilder.buildPatch().isPresent());
+	}
+
+	/**
+	 * Builds a patch, applies it to the model last submitted and asserts that the
+	 * result equals the current model, including the order of the children of
+	 * the given parents. The current model is submitted afterwards.
+	 */
+	private List<Match> assertPatch(GModelElement... orderedParents) {
+		Optional<List<Match>> patch = patchBuilder.buildPatch();
+		assertTrue(patch.isPresent());
+		applyPatch(submitted, patch.get());
+		for (GModelElement parent : orderedParents) {
+			assertEquals(getChildIds(parent), getChildIds(GModelIndex.get(submitted).get(parent.getId()).get()),
+					"Order of the children of " + parent.getId());
+		}
+		assertModelEquals(normalize(EcoreUtil.copy(graph)), normalize(submitted));
+		submit();
+		return patch.get();
+	}
+
+	private void addChildren(GModelElement parent, String... ids) {
+		for (String id : ids) {
+			parent.getChildren().add(createNode(id));
+		}
+		assertPatch();
+	}
+
+	private static List<String> getChildIds(GModelElement parent) {
+		return parent.getChildren().stream().map(GModelElement::getId).collect(Collectors.toList());
+	}
+
+	private void submit() {
+		patchBuilder.reset();
+		submitted = EcoreUtil.copy(graph);
+	}
+
+	/**
+	 * Applies the matches like the client does: the left element is removed from
+	 * its parent, and the right element is added at the end of its parent.
+	 */
+	private static void applyPatch(GGraph model, List<Match> patch) {
+		GModelIndex index = GModelIndex.get(model);
+		for (Match match : patch) {
+			if (match.getLeft() != null) {
+				assertNotNull(match.getLeftParentId(), "No parent for removed element " + match.getLeft().getId());
+				GModelElement parent = index.get(match.getLeftParentId()).orElse(null);
+				if (parent != null) {
+					GModelElement left = index.get(match.getLeft().getId()).orElse(null);
+					assertTrue(left != null && left.getParent() == parent,
+							"No child " + match.getLeft().getId() + " in " + match.getLeftParentId());
+					parent.getChildren().remove(left);
+				}
+			}
+			if (match.getRight() != null) {
+				GModelElement parent = index.get(match.getRightParentId()).orElse(null);
+				assertNotNull(parent, "No parent " + match.getRightParentId());
+				parent.getChildren().add(EcoreUtil.copy(match.getRight()));
+			}
+		}
+	}
+
+	/**
+	 * Sorts the children by their ids, as added elements are appended to their
+	 * parent.
+	 */
+	private static GGraph normalize(GGraph model) {
+		model.eAllContents().forEachRemaining(object -> {
+			if (object instanceof GModelElement) {
+				ECollections.sort(((GModelElement) object).getChildren(), Comparator.comparing(GModelElement::getId));
+			}
+		});
+		ECollections.sort(model.getChildren(), Comparator.comparing(GModelElement::getId));
+		return model;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GModelElement;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+
+/**
+ * Builds the small graphs shared by the model change tests and compares them.
+ */
+final class GModelTestFixtures {
+
+	private GModelTestFixtures() {
+	}
+
+	static GGraph createGraph(GModelElement... children) {
+		GGraph graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		graph.getChildren().addAll(Arrays.asList(children));
+		return graph;
+	}
+
+	static GNode createNode(String id, GModelElement... children) {
+		GNode node = GraphFactory.eINSTANCE.createGNode();
+		node.setId(id);
+		node.setType("node");
+		node.setPosition(GraphUtil.point(10, 20));
+		node.setSize(GraphUtil.dimension(30, 40));
+		node.getChildren().addAll(Arrays.asList(children));
+		return node;
+	}
+
+	static void assertModelEquals(GModelElement expected, GModelElement actual) {
+		assertTrue(EcoreUtil.equals(expected, actual), "Expected " + toString(expected) + " but was " + toString(actual));
+	}
+
+	private static String toString(GModelElement element) {
+		StringBuilder builder = new StringBuilder(element.getId());
+		if (!element.getChildren().isEmpty()) {
+			builder.append('[');
+			element.getChildren().forEach(child -> builder.append(toString(child)).append(' '));
+			builder.append(']');
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.assertModelEquals;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createGraph;
+import static com.eclipsesource.glsp.server.test.GModelTestFixtures.createNode;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GNode;
+import com.eclipsesource.glsp.graph.util.GraphUtil;
+import com.eclipsesource.glsp.server.command.GModelChangeRecord;
+import com.eclipsesource.glsp.server.command.GModelChangeRecorder;
+import com.eclipsesource.glsp.server.command.GModelJournalingCommandStack;
+import com.eclipsesource.glsp.server.command.GModelRecordingCommand;
+import com.eclipsesource.glsp.server.command.GModelUndoJournal;
+
+class GModelUndoJournalTest {
+
+	private GGraph graph;
+	private GNode node1;
+	private GNode node2;
+	private GNode child;
+	private GModelChangeRecorder recorder;
+	private GModelUndoJournal journal;
+
+	@BeforeEach
+	void setUpGraphWithNestedNode() {
+		node1 = createNode("node1");
+		child = createNode("child");
+		node2 = createNode("node2", child);
+		graph = createGraph(node1, node2);
+		recorder = new GModelChangeRecorder(graph);
+		journal = new GModelUndoJournal(graph);
+	}
+
+	@AfterEach
+	void dispose() {
+		recorder.dispose();
+		journal.close();
+	}
+
+	@Test
+	void testReadRecord() throws IOException {
+		GGraph before = EcoreUtil.copy(graph);
+		recorder.beginRecording();
+		node1.setType("changed");
+		node1.setPosition(GraphUtil.point(100, 200));
+		graph.getChildren().move(1, 0);
+		GModelChangeRecord record = recorder.endRecording();
+		GGraph after = EcoreUtil.copy(graph);
+
+		GModelChangeRecord restored = journal.read(journal.append(record));
+		assertEquals(record.getDeltaCount(), restored.getDeltaCount());
+		restored.undo();
+		assertModelEquals(before, graph);
+		restored.redo();
+		assertModelEquals(after, graph);
+	}
+
+	@Test
+	void testReadChangesWithinRemovedSubtree() throws IOException {
+		GGraph before = EcoreUtil.copy(graph);
+		recorder.beginRecording();
+		child.setType("changed");
+		child.setPosition(GraphUtil.point(100, 200));
+		graph.getChildren().remove(node2);
+		GModelChangeRecord record = recorder.endRecording();
+		GGraph after = EcoreUtil.copy(graph);
+
+		// the removed node and its child have to be restored as one copy
+		GModelChangeRecord restored = journal.read(journal.append(record));
+		restored.undo();
+		assertModelEquals(before, graph);
+		restored.redo();
+		assertModelEquals(after, graph);
+		restored.undo();
+		assertModelEquals(before, graph);
+	}
+
+	@Test
+	void testSpillAndReload() {
+		GGraph initial = EcoreUtil.copy(graph);
+		try (GModelJournalingCommandStack commandStack = new GModelJournalingCommandStack(graph, 1, 0, 0)) {
+			commandStack.execute(command(() -> child.setType("changed")));
+			commandStack.execute(command(() -> node2.getChildren().add(createNode("added"))));
+			commandStack.execute(command(() -> graph.getChildren().remove(node2)));
+			commandStack.execute(command(() -> node1.setPosition(GraphUtil.point(100, 200))));
+			GGraph changed = EcoreUtil.copy(graph);
+			assertTrue(commandStack.getJournalSize() > 0);
+
+			while (commandStack.canUndo()) {
+				commandStack.undo();
+			}
+			assertModelEquals(initial, graph);
+			while (commandStack.canRedo()) {
+				commandStack.redo();
+			}
+			assertModelEquals(changed, graph);
+			assertFalse(commandStack.canRedo());
+		}
+	}
+
+	@Test
+	void testSpillUndoneCommands() {
+		GGraph initial = EcoreUtil.copy(graph);
+		GNode added = createNode("added");
+		List<GModelRecordingCommand> commands = Arrays.asList(command(() -> child.setType("changed")),
+				command(() -> node1.getChildren().add(added)),
+				command(() -> added.setPosition(GraphUtil.point(50, 60))),
+				command(() -> graph.getChildren().remove(node2)),
+				command(() -> node1.getChildren().remove(added)),
+				command(() -> node1.setPosition(GraphUtil.point(100, 200))));
+		try (GModelJournalingCommandStack commandStack = new GModelJournalingCommandStack(graph, 2, 0, 0)) {
+			commands.forEach(commandStack::execute);
+			GGraph changed = EcoreUtil.copy(graph);
+
+			for (int i = 0; i < 5; i++) {
+				commandStack.undo();
+			}
+			// only the two commands that are redone next stay on the heap
+			assertTrue(commands.get(1).getEstimatedSize() > 0);
+			assertTrue(commands.get(2).getEstimatedSize() > 0);
+			for (GModelRecordingCommand command : commands.subList(3, commands.size())) {
+				assertEquals(0, command.getEstimatedSize());
+			}
+
+			commandStack.undo();
+			assertModelEquals(initial, graph);
+			assertEquals(0, commands.get(3).getEstimatedSize());
+			while (commandStack.canRedo()) {
+				commandStack.redo();
+			}
+			assertModelEquals(changed, graph);
+			while (commandStack.canUndo()) {
+				commandStack.undo();
+			}
+			assertModelEquals(initial, graph);
+		}
+	}
+
+	private GModelRecordingCommand command(Runnable runnable) {
+		return new GModelRecordingCommand(recorder, "Change", runnable);
+	}
+
+}
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.api.action.Action;
+import com.eclipsesource.glsp.api.action.kind.RequestBoundsAction;
+import com.eclipsesource.glsp.api.action.kind.SetModelAction;
+import com.eclipsesource.glsp.graph.GGraph;
+import com.eclipsesource.glsp.graph.GraphFactory;
+import com.eclipsesource.glsp.server.actionhandler.ModelSubmissionHandler;
+import com.eclipsesource.glsp.server.actionhandler.ModelSubmissionScheduler;
+import com.eclipsesource.glsp.server.model.ModelStateImpl;
+
+class ModelSubmissionSchedulerTest {
+
+	private static final long WINDOW = 10;
+	private static final long TIMEOUT = 1000;
+
+	private ManualScheduledExecutor executor;
+	private ModelStateImpl modelState;
+	private List<Action> sent;
+	private boolean requestBounds;
+	private ModelSubmissionScheduler scheduler;
+
+	@BeforeEach
+	void setUpScheduler() {
+		executor = new ManualScheduledExecutor();
+		GGraph graph = GraphFactory.eINSTANCE.createGGraph();
+		graph.setId("graphId");
+		modelState = new ModelStateImpl();
+		modelState.setClientId("client");
+		modelState.setRoot(graph);
+		sent = new ArrayList<>();
+		requestBounds = true;
+		scheduler = new ModelSubmissionScheduler(modelState, executor, (clientId, action) -> sent.add(action),
+				state -> requestBounds ? new RequestBoundsAction(state.getRoot()) : new SetModelAction(state.getRoot()),
+				WINDOW, TIMEOUT);
+	}
+
+	@Test
+	void testSubmissionsWithinWindowAreCoalesced() {
+		scheduler.schedule();
+		executor.advance(WINDOW - 1);
+		scheduler.schedule();
+		scheduler.schedule();
+		assertTrue(sent.isEmpty());
+
+		executor.advance(1);
+		assertEquals(1, sent.size());
+		assertFalse(scheduler.isPending());
+	}
+
+	@Test
+	void testSubmissionAwaitsAcknowledge() {
+		scheduler.schedule();
+		executor.advance(WINDOW);
+		int requestedRevision = modelState.getRevision();
+		scheduler.schedule();
+		executor.advance(WINDOW);
+		assertEquals(1, sent.size());
+		assertTrue(scheduler.isPending());
+
+		scheduler.acknowledge(requestedRevision - 1);
+		executor.advance(WINDOW);
+		assertEquals(1, sent.size());
+
+		scheduler.acknowledge(requestedRevision);
+		executor.advance(0);
+		assertEquals(2, sent.size());
+		assertFalse(scheduler.isPending());
+	}
+
+	@Test
+	void testAcknowledgeTimeout() {
+		scheduler.schedule();
+		executor.advance(WINDOW);
+		scheduler.schedule();
+		executor.advance(TIMEOUT - 1);
+		assertEquals(1, sent.size());
+
+		executor.advance(1);
+		assertEquals(2, sent.size());
+	}
+
+	@Test
+	void testDirectSubmissionDoesNotAwaitAcknowledge() {
+		requestBounds = false;
+		scheduler.schedule();
+		executor.advance(WINDOW);
+		scheduler.schedule();
+		executor.advance(WINDOW);
+		assertEquals(2, sent.size());
+		assertTrue(sent.get(1) instanceof SetModelAction);
+	}
+
+	@Test
+	void testSubmitPending() {
+		scheduler.schedule();
+		scheduler.submitPending();
+		assertEquals(1, sent.size());
+
+		// the deferred submission has been cancelled
+		executor.advance(WINDOW);
+		assertEquals(1, sent.size());
+
+		// a submission that awaits an acknowledgement is not sent early
+		scheduler.schedule();
+		scheduler.submitPending();
+		assertEquals(1, sent.size());
+	}
+
+	@Test
+	void testDispose() {
+		scheduler.schedule();
+		scheduler.dispose();
+		scheduler.schedule();
+		executor.advance(TIMEOUT);
+		assertTrue(sent.isEmpty());
+		assertTrue(executor.isIdle());
+	}
+
+	@Test
+	void testHandlerDisposesScheduler() {
+		ModelSubmissionHandler submissionHandler = new ModelSubmissionHandler();
+		ModelSubmissionScheduler handlerScheduler = submissionHandler.getScheduler(modelState);
+		assertSame(handlerScheduler, submissionHandler.getScheduler(modelState));
+
+		submissionHandler.dispose(modelState);
+		assertNotSame(handlerScheduler, submissionHandler.getScheduler(modelState));
+		submissionHandler.dispose(modelState);
+	}
+
+	/**
+	 * Executor with a manual clock that runs the scheduled tasks on the calling
+	 * thread once the clock is advanced past their delay.
+	 */
+	static class ManualScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+		private final PriorityQueue<Task<?>> tasks = new PriorityQueue<>();
+		private long now;
+		private long sequence;
+
+		void advance(long millis) {
+			long target = now + millis;
+			while (!tasks.isEmpty() && tasks.peek().time <= target) {
+				Task<?> task = tasks.poll();
+				now = Math.max(now, task.time);
+				if (!task.isCancelled()) {
+					task.run();
+				}
+			}
+			now = target;
+		}
+
+		boolean isIdle() {
+			return tasks.stream().allMatch(Task::isCancelled);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+			return schedule(() -> {
+				command.run();
+				return null;
+			}, delay, unit);
+		}
+
+		@Override
+		public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+			Task<V> task = new Task<>(callable, now + unit.toMillis(delay), sequence++);
+			tasks.add(task);
+			return task;
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+				TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+				TimeUnit unit) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			schedule(command, 0, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void shutdown() {
+			tasks.clear();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			tasks.clear();
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+
+		private class Task<V> extends FutureTask<V> implements ScheduledFuture<V> {
+			private final long time;
+			private final long order;
+
+			Task(Callable<V> callable, long time, long order) {
+				super(callable);
+				this.time = time;
+				this.order = order;
+			}
+
+			@Override
+			public long getDelay(TimeUnit unit) {
+				return unit.convert(time - now, TimeUnit.MILLISECONDS);
+			}
+
+			@Override
+			public int compareTo(Delayed other) {
+				Task<?> task = (Task<?>) other;
+				return time != task.time ? Long.compare(time, task.time) : Long.compare(order, task.order);
+			}
+		}
+	}
+
+}
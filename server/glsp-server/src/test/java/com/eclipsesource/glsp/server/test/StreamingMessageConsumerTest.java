@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2019 EclipseSource and others.
+ *  
+ *   This program and the accompanying materials are made available under the
+ *   terms of the Eclipse Public License v. 2.0 which is available at
+ *   http://www.eclipse.org/legal/epl-2.0.
+ *  
+ *   This Source Code may also be made available under the following Secondary
+ *   Licenses when the conditions for such availability set forth in the Eclipse
+ *   Public License v. 2.0 are satisfied: GNU General Public License, version 2
+ *   with the GNU Classpath Exception which is available at
+ *   https://www.gnu.org/software/classpath/license.html.
+ *  
+ *   SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ ******************************************************************************/
+package com.eclipsesource.glsp.server.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.eclipse.lsp4j.jsonrpc.json.MessageJsonHandler;
+import org.eclipse.lsp4j.jsonrpc.messages.NotificationMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eclipsesource.glsp.server.jsonrpc.StreamingMessageConsumer;
+
+class StreamingMessageConsumerTest {
+
+	private static final int CHUNK_SIZE = 64;
+
+	private MessageJsonHandler jsonHandler;
+	private ByteArrayOutputStream output;
+	private Path spoolFile;
+	private StreamingMessageConsumer consumer;
+
+	@BeforeEach
+	void setUpConsumer() {
+		jsonHandler = new MessageJsonHandler(Collections.emptyMap());
+		output = new ByteArrayOutputStream();
+		spoolFile = null;
+		consumer = new StreamingMessageConsumer(output, jsonHandler, CHUNK_SIZE) {
+			@Override
+			protected Path createSpoolFile() throws IOException {
+				spoolFile = super.createSpoolFile();
+				return spoolFile;
+			}
+		};
+	}
+
+	@Test
+	void testWriteSmallMessageFromMemory() {
+		NotificationMessage message = createMessage("small");
+
+		consumer.consume(message);
+		assertNull(spoolFile);
+		assertMessage(message);
+	}
+
+	@Test
+	void testWriteLargeMessageFromSpoolFile() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("label ä€ ").append(i);
+		}
+		NotificationMessage message = createMessage(text.toString());
+
+		consumer.consume(message);
+		assertTrue(spoolFile != null);
+		assertFalse(Files.exists(spoolFile));
+		assertMessage(message);
+	}
+
+	@Test
+	void testWriteMultibyteMessageOfManyChunks() throws IOException {
+		Path spoolDirectory = Files.createTempDirectory("glsp-spool");
+		try {
+			consumer = new StreamingMessageConsumer(output, jsonHandler,
+					StreamingMessageConsumer.DEFAULT_CHUNK_SIZE, spoolDirectory);
+			// two, three and four bytes per character in UTF-8
+			String text = String.join("", Collections.nCopies(100_000, "\u00e4\u20ac\ud83d\ude00"));
+			NotificationMessage message = createMessage(text);
+
+			consumer.consume(message);
+			String content = jsonHandler.serialize(message);
+			int contentLength = content.getBytes(StandardCharsets.UTF_8).length;
+			assertTrue(contentLength > 10 * StreamingMessageConsumer.DEFAULT_CHUNK_SIZE);
+			assertTrue(contentLength > content.length());
+			assertMessage(message);
+			try (Stream<Path> files = Files.list(spoolDirectory)) {
+				assertEquals(0, files.count());
+			}
+		} finally {
+			Files.delete(spoolDirectory);
+		}
+	}
+
+	@Test
+	void testWriteConsecutiveMessages() {
+		NotificationMessage small = createMessage("small");
+		NotificationMessage large = createMessage(String.join("", Collections.nCopies(50, "text ")));
+
+		consumer.consume(large);
+		consumer.consume(small);
+		assertEquals(frame(large) + frame(small), new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private void assertMessage(NotificationMessage message) {
+		assertEquals(frame(message), new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private String frame(NotificationMessage message) {
+		String content = jsonHandler.serialize(message);
+		return "Content-Length: " + content.getBytes(StandardCharsets.UTF_8).length + "\r\n\r\n" + content;
+	}
+
+	private static NotificationMessage createMessage(String text) {
+		NotificationMessage message = new NotificationMessage();
+		message.setMethod("process");
+		message.setParams(Collections.singletonMap("text", text));
+		return message;
+	}
+
+}